@@ -0,0 +1,69 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.FileUpload;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.*;
+
+/**
+ * per request state shared by parameter binders of all candidate methods
+ */
+final class BindContext {
+
+    final RoutingContext routingContext;
+    final Serializer serializer;
+    final ContextProvider provider;
+    private Map<String, List<FileUpload>> fileUploads;
+
+    BindContext(RoutingContext routingContext, Serializer serializer, ContextProvider provider) {
+        this.routingContext = routingContext;
+        this.serializer = serializer;
+        this.provider = provider;
+    }
+
+    /**
+     * uploads of a form field, indexed by name on first call
+     * @param name form field name
+     * @return uploads, empty if none
+     */
+    List<FileUpload> fileUploads(String name) {
+        List<FileUpload> uploads = fileUploadIndex().get(name);
+        return uploads == null ? Collections.emptyList() : uploads;
+    }
+
+    /**
+     * uploads of request indexed by form field name, built once per request
+     * @return index, in iteration order of routing context uploads
+     */
+    Map<String, List<FileUpload>> fileUploadIndex() {
+        Map<String, List<FileUpload>> index = fileUploads;
+        if (index == null) {
+            final Set<FileUpload> uploads = routingContext.fileUploads();
+            if (uploads.isEmpty()) {
+                index = Collections.emptyMap();
+            } else {
+                index = new LinkedHashMap<>();
+                for (FileUpload upload : uploads) {
+                    index.computeIfAbsent(upload.name(), key -> new ArrayList<>(1)).add(upload);
+                }
+            }
+            fileUploads = index;
+        }
+        return index;
+    }
+
+    /**
+     * provide context object, request scoped objects first
+     * @param clz context class
+     * @return context object or null
+     */
+    Object provideContext(Class<?> clz) {
+        if (clz == RoutingContext.class) return routingContext;
+        if (clz == HttpServerResponse.class) return routingContext.response();
+        if (clz == HttpServerRequest.class) return routingContext.request();
+        return provider.provideContext(clz);
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.mdvsc.vertx.rest;
+
+/**
+ * Result of binding request values to method arguments.
+ * A failed binding carries the failed parameter and the reason instead of throwing.
+ */
+public final class BindResult {
+
+    public enum Status {
+        /** all arguments built */
+        BOUND,
+        /** a required value is absent from request */
+        MISSING,
+        /** a value is present but can not be converted to parameter type */
+        INVALID
+    }
+
+    static BindResult bound(Object[] arguments) {
+        return new BindResult(Status.BOUND, arguments, -1, null, null);
+    }
+
+    static BindResult missing(int parameterIndex, String parameterName) {
+        return new BindResult(Status.MISSING, null, parameterIndex, parameterName, "missing parameter " + parameterName);
+    }
+
+    static BindResult invalid(int parameterIndex, String parameterName, Class<?> parameterType) {
+        return new BindResult(Status.INVALID, null, parameterIndex, parameterName
+                , "parameter " + parameterName + " is not a valid " + parameterType.getSimpleName());
+    }
+
+    private final Status status;
+    private final Object[] arguments;
+    private final int parameterIndex;
+    private final String parameterName;
+    private final String reason;
+
+    private BindResult(Status status, Object[] arguments, int parameterIndex, String parameterName, String reason) {
+        this.status = status;
+        this.arguments = arguments;
+        this.parameterIndex = parameterIndex;
+        this.parameterName = parameterName;
+        this.reason = reason;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isBound() {
+        return status == Status.BOUND;
+    }
+
+    /**
+     * built arguments
+     * @return arguments, null if not bound
+     */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * failed parameter index
+     * @return index, -1 if bound
+     */
+    public int getParameterIndex() {
+        return parameterIndex;
+    }
+
+    /**
+     * failed parameter name, the annotated request name if any
+     * @return name, null if bound
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * failure reason
+     * @return reason, null if bound
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return reason == null ? status.name() : status + ": " + reason;
+    }
+
+}
@@ -10,6 +10,28 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Blocking {
+
+    /**
+     * run calls of same request context in order
+     */
     boolean value() default false;
+
+    /**
+     * name of worker pool registered to mapper, empty for shared vertx worker pool
+     */
+    String pool() default "";
+
+    /**
+     * name of query, header, field or path parameter to order by, calls of equal value run in order
+     * and calls of other values in parallel, across methods ordered by same name. Overrides {@link #value()}
+     */
+    String orderBy() default "";
+
+    /**
+     * invoke on a virtual thread when runtime supports them, response is still written on event loop.
+     * Falls back to {@link #pool()} or shared vertx worker pool on older runtimes and for {@link #value()} ordered calls
+     */
+    boolean virtual() default false;
+
 }
 
@@ -0,0 +1,30 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Body handling of routes, on resource class or route method, method values override class values.
+ * Routes get a body handler only if a method reads body through {@link Body}, {@link Field}, {@link FieldMap},
+ * {@link File}, {@link FileSet} or {@link FileMap}, or is annotated by this directly.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface BodyConfig {
+
+    /**
+     * max body size in bytes, larger body is rejected with 413, -1 to keep default
+     */
+    long limit() default -1;
+
+    /**
+     * upload directory, empty to keep default
+     */
+    String uploadPath() default "";
+
+    /**
+     * accept file uploads
+     */
+    boolean uploads() default true;
+
+}
@@ -0,0 +1,32 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Cache-Control header of successful responses, on resource class or route method, method annotation overrides class.
+ * Header set by method itself is kept.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface CacheControl {
+
+    /**
+     * max-age in seconds, negative to omit
+     */
+    long maxAge() default -1;
+
+    /**
+     * s-maxage in seconds, negative to omit
+     */
+    long sharedMaxAge() default -1;
+
+    boolean isPrivate() default false;
+
+    boolean noCache() default false;
+
+    boolean noStore() default false;
+
+    boolean mustRevalidate() default false;
+
+}
@@ -0,0 +1,26 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Cache serialized responses of a route method, keyed by its bound parameter values and response serializer.
+ * A hit ends the response with the cached body, method is neither invoked nor its result serialized.
+ * Only 200 responses of plain and {@code Single} results are cached, headers set by method are not.
+ * Values of {@link Context} parameters are not part of the key.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cacheable {
+
+    /**
+     * time to live of entries in milliseconds, 0 or less never expires
+     */
+    long ttl() default 60_000;
+
+    /**
+     * max entries, least recently used entry is evicted beyond
+     */
+    int maxEntries() default 1024;
+
+}
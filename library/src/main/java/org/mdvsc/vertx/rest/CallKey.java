@@ -0,0 +1,39 @@
+package org.mdvsc.vertx.rest;
+
+import java.util.Arrays;
+
+/**
+ * Identity of a route method call, its bound parameter values and response serializer.
+ * Values of {@link Context} parameters are left out.
+ */
+final class CallKey {
+
+    private final Object[] values;
+    private final int hash;
+
+    /**
+     * @param arguments bound arguments
+     * @param keyParameters parameters taking part in key
+     * @param serializer response serializer
+     */
+    CallKey(Object[] arguments, boolean[] keyParameters, Serializer serializer) {
+        final Object[] values = new Object[arguments.length + 1];
+        values[0] = serializer;
+        for (int i = 0; i < arguments.length; i++) {
+            if (keyParameters[i]) values[i + 1] = arguments[i];
+        }
+        this.values = values;
+        this.hash = Arrays.deepHashCode(values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CallKey && hash == ((CallKey) obj).hash && Arrays.deepEquals(values, ((CallKey) obj).values);
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Share one in-flight call of a route method between concurrent requests with equal bound parameter values
+ * and response serializer. Waiting requests end on their own event loop with status and serialized body of
+ * the shared call, or its failure. Headers set by method are not shared, streamed results are not shared
+ * and waiting requests call method themselves then. Values of {@link Context} parameters are not compared.
+ * A call whose response closes before it ends stops being shared, later requests start a new one.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+
+    /**
+     * max milliseconds a request waits for the shared call, it calls method itself after, 0 or less waits until the call ends
+     */
+    long timeout() default 30_000;
+
+}
@@ -0,0 +1,147 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-flight calls of a {@link Coalesce} method by call key.
+ * First caller of a key leads the flight and finishes it, later callers wait for its result
+ * until the flight ends or their wait times out.
+ */
+final class CoalescedCalls {
+
+    private final ConcurrentHashMap<CallKey, Flight> flights = new ConcurrentHashMap<>();
+    private final long timeout;
+
+    /**
+     * @param timeout max milliseconds callers wait for a flight, 0 or less without bound
+     */
+    CoalescedCalls(long timeout) {
+        this.timeout = timeout;
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * join in-flight call of key, or start one led by caller
+     * @param key call key
+     * @param caller caller
+     * @return flight, {@link Flight#isLedBy(MethodCaller) led by caller} if new
+     */
+    Flight join(CallKey key, MethodCaller caller) {
+        final Flight flight = new Flight(key, caller);
+        final Flight current = flights.putIfAbsent(key, flight);
+        return current != null ? current : flight;
+    }
+
+    final class Flight {
+
+        private final CallKey key;
+        private final MethodCaller leader;
+        private List<MethodCaller> waiters = new ArrayList<>();
+        private boolean done;
+        private boolean shared;
+        private int statusCode;
+        private Buffer body;
+        private Throwable failure;
+
+        private Flight(CallKey key, MethodCaller leader) {
+            this.key = key;
+            this.leader = leader;
+        }
+
+        boolean isLedBy(MethodCaller caller) {
+            return leader == caller;
+        }
+
+        /**
+         * wait for result of flight, caller ends with it at once if flight is done
+         * @param caller waiting caller
+         */
+        void await(MethodCaller caller) {
+            synchronized (this) {
+                if (!done) {
+                    waiters.add(caller);
+                    return;
+                }
+            }
+            caller.endWithFlight(this);
+        }
+
+        /**
+         * stop waiting, flight is removed so later callers start a new one
+         * @param caller waiting caller
+         * @return false if flight is done already, caller ends with it then
+         */
+        boolean leave(MethodCaller caller) {
+            synchronized (this) {
+                if (done || !waiters.remove(caller)) return false;
+            }
+            flights.remove(key, this);
+            return true;
+        }
+
+        /**
+         * share ended response
+         * @param statusCode response status
+         * @param body serialized body, null for empty
+         */
+        void complete(int statusCode, Buffer body) {
+            finish(true, statusCode, body, null);
+        }
+
+        /**
+         * share failure of call
+         * @param failure failure
+         */
+        void fail(Throwable failure) {
+            finish(true, 0, null, failure);
+        }
+
+        /**
+         * result can not be shared, waiters call method themselves
+         */
+        void release() {
+            finish(false, 0, null, null);
+        }
+
+        boolean isShared() {
+            return shared;
+        }
+
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        Buffer getBody() {
+            return body;
+        }
+
+        Throwable getFailure() {
+            return failure;
+        }
+
+        private void finish(boolean shared, int statusCode, Buffer body, Throwable failure) {
+            final List<MethodCaller> waiters;
+            synchronized (this) {
+                if (done) return;
+                this.shared = shared;
+                this.statusCode = statusCode;
+                this.body = body;
+                this.failure = failure;
+                this.done = true;
+                waiters = this.waiters;
+                this.waiters = null;
+            }
+            flights.remove(key, this);
+            for (MethodCaller waiter : waiters) waiter.endWithFlight(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Limit concurrent requests of a route by an adaptive {@link ConcurrencyLimiter}, on a method or all methods of a class.
+ * Requests beyond the limit are answered with 503 and Retry-After before parameters are bound.
+ * Methods sharing a route share its limiter, configured by the first annotated one.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ConcurrencyLimit {
+
+    /**
+     * limit before latency is observed
+     */
+    int initialLimit() default 20;
+
+    /**
+     * limit never shrinks below
+     */
+    int minLimit() default 1;
+
+    /**
+     * limit never grows beyond
+     */
+    int maxLimit() default 1000;
+
+    /**
+     * seconds of Retry-After header of rejected requests
+     */
+    int retryAfter() default 1;
+
+}
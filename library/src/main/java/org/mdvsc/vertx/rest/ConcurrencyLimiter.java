@@ -0,0 +1,138 @@
+package org.mdvsc.vertx.rest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive concurrency limit of a route, gradient style, driven by latency.
+ * Latency is smoothed over a short and a long window of requests, the long window average being the baseline.
+ * While the limit is in use it is moved towards limit times their ratio, capped at one, plus a queue allowance of
+ * its square root, so it grows while recent latency stays near the baseline and shrinks once it rises over it.
+ * A response answered with 503 shrinks it by a tenth. Single fast or slow responses barely move either average.
+ * Admission and updates are compare and set loops, no lock is taken on event loop.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double LATENCY_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double NO_SAMPLE = -1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final String retryAfter;
+    private final AtomicLong limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong shortLatency = new AtomicLong(Double.doubleToLongBits(NO_SAMPLE));
+    private final AtomicLong longLatency = new AtomicLong(Double.doubleToLongBits(NO_SAMPLE));
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param initialLimit limit before latency is observed
+     * @param minLimit     limit never shrinks below
+     * @param maxLimit     limit never grows beyond
+     * @param retryAfter   seconds of Retry-After header of rejected requests
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int retryAfter) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.retryAfter = String.valueOf(retryAfter);
+        this.limit = new AtomicLong(Double.doubleToLongBits(Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit))));
+    }
+
+    public ConcurrencyLimiter(ConcurrencyLimit limit) {
+        this(limit.initialLimit(), limit.minLimit(), limit.maxLimit(), limit.retryAfter());
+    }
+
+    /**
+     * admit request if under limit
+     * @return false if rejected
+     */
+    public boolean tryAcquire() {
+        final int current = getLimit();
+        for (;;) {
+            final int count = inFlight.get();
+            if (count >= current) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(count, count + 1)) return true;
+        }
+    }
+
+    /**
+     * complete admitted request and adapt limit by its latency
+     * @param startNanos {@link System#nanoTime()} of admission
+     * @param dropped    request was shed downstream, such as by a full worker pool
+     */
+    public void release(long startNanos, boolean dropped) {
+        sample(System.nanoTime() - startNanos, inFlight.getAndDecrement(), dropped);
+    }
+
+    /**
+     * adapt limit by one completed request
+     * @param latency  latency in nanoseconds
+     * @param inFlight requests in flight when it completed, including itself
+     * @param dropped  request was shed downstream
+     */
+    void sample(long latency, int inFlight, boolean dropped) {
+        if (dropped) {
+            limit.getAndUpdate(bits -> Double.doubleToLongBits(Math.max(minLimit, Double.longBitsToDouble(bits) * BACKOFF_RATIO)));
+            return;
+        }
+        final double shortAverage = average(shortLatency, latency, SHORT_WINDOW);
+        final double longAverage = Double.longBitsToDouble(longLatency.updateAndGet(bits -> {
+            final double current = Double.longBitsToDouble(bits);
+            final double next = current == NO_SAMPLE ? latency : current + (latency - current) * 2 / (LONG_WINDOW + 1);
+            // latency dropped for good, such as once a slow dependency recovers, baseline catches up sooner
+            return Double.doubleToLongBits(next > shortAverage * 2 ? next * 0.95 : next);
+        }));
+        limit.getAndUpdate(bits -> {
+            final double current = Double.longBitsToDouble(bits);
+            if (inFlight * 2 < current) return bits; // limit not in use tells nothing of its size
+            final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, LATENCY_TOLERANCE * longAverage / shortAverage));
+            final double target = current * gradient + Math.sqrt(current);
+            return Double.doubleToLongBits(Math.min(maxLimit, Math.max(minLimit, current * (1 - SMOOTHING) + target * SMOOTHING)));
+        });
+    }
+
+    private static double average(AtomicLong average, long latency, double window) {
+        return Double.longBitsToDouble(average.updateAndGet(bits -> {
+            final double current = Double.longBitsToDouble(bits);
+            return Double.doubleToLongBits(current == NO_SAMPLE ? latency : current + (latency - current) * 2 / (window + 1));
+        }));
+    }
+
+    /**
+     * complete admitted request without latency sample, such as one passed on to next route,
+     * answered from cache, not modified or rejected as bad
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Retry-After header value of rejected requests
+     * @return seconds
+     */
+    public String getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Context;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completions of blocking calls handed back to their event loop context, serializing and writing responses there.
+ * Completions arriving while a hop is pending join it, so one context task ends a batch of responses.
+ */
+final class ContextCompletions {
+
+    private static final String KEY = ContextCompletions.class.getName();
+    private static final int MAX_BATCH = 64;
+
+    private final Context context;
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private ContextCompletions(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * completions of context, call on the context
+     * @param context event loop context
+     * @return completions
+     */
+    static ContextCompletions of(Context context) {
+        ContextCompletions completions = context.get(KEY);
+        if (completions == null) context.put(KEY, completions = new ContextCompletions(context));
+        return completions;
+    }
+
+    /**
+     * run completion on context, from any thread
+     * @param completion completion
+     */
+    void complete(Runnable completion) {
+        completions.add(completion);
+        if (size.getAndIncrement() == 0) context.runOnContext(v -> drain());
+    }
+
+    private void drain() {
+        for (int count = 1; ; count++) {
+            try {
+                completions.poll().run();
+            } catch (Throwable e) {
+                if (size.decrementAndGet() > 0) context.runOnContext(v -> drain());
+                throw e;
+            }
+            if (size.decrementAndGet() == 0) return;
+            if (count == MAX_BATCH) { // leave event loop to other tasks
+                context.runOnContext(v -> drain());
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Tag ok responses of a route method with an ETag header and answer GET or HEAD requests whose If-None-Match
+ * matches with bodyless 304. Tag is a hash of serialized response, or a version token of resource if given.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ETag {
+
+    /**
+     * name of a public resource method returning version token of response, null for no token.
+     * It takes route method parameters or none, and is called before route method, on event loop,
+     * or on the thread of a {@link Blocking} route method, a matched tag skips route method call and serialization. Empty to hash serialized response.
+     */
+    String version() default "";
+
+    /**
+     * tag as weak validator
+     */
+    boolean weak() default false;
+
+}
@@ -0,0 +1,98 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static io.vertx.core.http.HttpHeaders.IF_NONE_MATCH;
+
+/**
+ * Entity tags, conditional requests and Cache-Control header values.
+ */
+final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    /**
+     * Cache-Control header value
+     * @param cacheControl annotation
+     * @return header value, null if annotation sets no directive
+     */
+    static String cacheControl(CacheControl cacheControl) {
+        final StringBuilder builder = new StringBuilder();
+        if (cacheControl.isPrivate()) builder.append(", private");
+        if (cacheControl.noCache()) builder.append(", no-cache");
+        if (cacheControl.noStore()) builder.append(", no-store");
+        if (cacheControl.mustRevalidate()) builder.append(", must-revalidate");
+        if (cacheControl.maxAge() >= 0) builder.append(", max-age=").append(cacheControl.maxAge());
+        if (cacheControl.sharedMaxAge() >= 0) builder.append(", s-maxage=").append(cacheControl.sharedMaxAge());
+        return builder.length() == 0 ? null : builder.substring(2);
+    }
+
+    /**
+     * tag of serialized content, crc32 and length of bytes
+     * @param content content
+     * @param weak weak validator
+     * @return quoted tag
+     */
+    static String entityTag(Buffer content, boolean weak) {
+        final CRC32 crc = new CRC32();
+        crc.update(content.getByteBuf().nioBuffer());
+        return quote(Integer.toHexString(content.length()) + '-' + Long.toHexString(crc.getValue()), weak);
+    }
+
+    /**
+     * tag of version token, token is used as is if it is valid tag content, or hashed otherwise
+     * @param version version token
+     * @param weak weak validator
+     * @return quoted tag
+     */
+    static String entityTag(Object version, boolean weak) {
+        final String token = version.toString();
+        for (int i = 0; i < token.length(); i++) {
+            final char ch = token.charAt(i);
+            if (ch <= ' ' || ch == '"' || ch >= 0x7F) {
+                final CRC32 crc = new CRC32();
+                crc.update(token.getBytes(StandardCharsets.UTF_8));
+                return quote(Long.toHexString(crc.getValue()), weak);
+            }
+        }
+        return quote(token, weak);
+    }
+
+    /**
+     * test if GET or HEAD request already holds tagged content, by weak comparison of If-None-Match tags
+     * @param request request
+     * @param entityTag tag of response
+     * @return true if response is not modified
+     */
+    static boolean isNotModified(HttpServerRequest request, String entityTag) {
+        final HttpMethod method = request.method();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) return false;
+        final String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+        if (ifNoneMatch == null) return false;
+        final String opaqueTag = opaque(entityTag);
+        int from = 0;
+        while (from <= ifNoneMatch.length()) {
+            int to = ifNoneMatch.indexOf(',', from);
+            if (to < 0) to = ifNoneMatch.length();
+            final String tag = ifNoneMatch.substring(from, to).trim();
+            if ("*".equals(tag) || opaque(tag).equals(opaqueTag)) return true;
+            from = to + 1;
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String quote(String tag, boolean weak) {
+        return (weak ? "W/\"" : "\"") + tag + '"';
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Context;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.stream.BaseStream;
+
+/**
+ * Writes a returned Iterator, Iterable or Stream to chunked response as one sequence framed by the serializer.
+ * Elements are pulled one chunk at a time, the next chunk is pulled when response write queue is not full,
+ * so heap holds about one chunk instead of the whole result. Results of non-blocking methods are pulled on
+ * the request context, results of blocking methods on their kind of thread, which may block on lazy sources,
+ * and only written on the request context. Returned Stream, or AutoCloseable Iterator, is closed when writing ends.
+ */
+final class IteratorResponseWriter {
+
+    private final RoutingContext routingContext;
+    private final Context context;
+    private final HttpServerResponse response;
+    private final Iterator<?> iterator;
+    private final AutoCloseable closeable;
+    private final SequenceWriter sequenceWriter;
+    private final Executor puller;
+    private boolean done = false;
+    private boolean pulling = false;
+    private volatile boolean cancelled = false;
+
+    private IteratorResponseWriter(RoutingContext routingContext, Context context, Object result, Serializer serializer, int chunkSize, Executor puller) {
+        this.routingContext = routingContext;
+        this.context = context;
+        this.response = routingContext.response();
+        if (result instanceof BaseStream) {
+            this.iterator = ((BaseStream<?, ?>) result).iterator();
+            this.closeable = (BaseStream<?, ?>) result;
+        } else {
+            this.iterator = result instanceof Iterator ? (Iterator<?>) result : ((Iterable<?>) result).iterator();
+            this.closeable = iterator instanceof AutoCloseable ? (AutoCloseable) iterator : null;
+        }
+        this.sequenceWriter = new SequenceWriter(response, serializer, chunkSize);
+        this.puller = puller;
+    }
+
+    /**
+     * test if method result is written by this writer
+     * @param result method result
+     * @param returnType declared return type
+     * @return true if result is an Iterator or Stream, or an Iterable declared as Iterable
+     */
+    static boolean supports(Object result, Class<?> returnType) {
+        return result instanceof Iterator || result instanceof BaseStream || returnType == Iterable.class && result instanceof Iterable;
+    }
+
+    /**
+     * start writing
+     * @param result method result, {@link #supports(Object, Class) supported}
+     * @param routingContext routing context
+     * @param context context of request
+     * @param serializer element serializer
+     * @param chunkSize bytes per written chunk
+     * @param puller executor pulling chunks off event loop, null to pull on request context
+     */
+    static void write(Object result, RoutingContext routingContext, Context context, Serializer serializer, int chunkSize, Executor puller) {
+        IteratorResponseWriter writer = new IteratorResponseWriter(routingContext, context, result, serializer, chunkSize, puller);
+        context.runOnContext(v -> writer.start());
+    }
+
+    private void start() {
+        response.setChunked(true);
+        if (puller == null) {
+            ResponseCloseHandlers.add(routingContext, v -> finish());
+            pump();
+        } else {
+            ResponseCloseHandlers.add(routingContext, v -> {
+                cancelled = true;
+                if (!pulling) puller.execute(this::finish);
+            });
+            pull();
+        }
+    }
+
+    private void pump() {
+        try {
+            while (!done) {
+                if (!iterator.hasNext()) {
+                    finish();
+                    sequenceWriter.end();
+                    return;
+                }
+                if (sequenceWriter.write(iterator.next())) {
+                    whenWritable(() -> context.runOnContext(v -> pump())); // let other requests of this event loop run between chunks
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (done) return;
+            finish();
+            fail(e);
+        }
+    }
+
+    /**
+     * pull next chunk by puller, on request context
+     */
+    private void pull() {
+        pulling = true;
+        puller.execute(this::pullChunk);
+    }
+
+    /**
+     * collect elements until a chunk is full or result ends, off event loop, then write it on request context
+     */
+    private void pullChunk() {
+        if (cancelled) {
+            finish();
+            return;
+        }
+        boolean last = false;
+        RuntimeException failure = null;
+        try {
+            for (;;) {
+                if (!iterator.hasNext()) {
+                    last = true;
+                    break;
+                }
+                if (sequenceWriter.append(iterator.next())) break;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        if (last || failure != null) finish();
+        final boolean isLast = last;
+        final RuntimeException pullFailure = failure;
+        context.runOnContext(v -> writeChunk(isLast, pullFailure));
+    }
+
+    private void writeChunk(boolean last, RuntimeException failure) {
+        pulling = false;
+        if (failure != null) {
+            fail(failure);
+        } else if (cancelled) {
+            if (!last) puller.execute(this::finish);
+        } else if (last) {
+            sequenceWriter.end();
+        } else {
+            response.write(sequenceWriter.takeChunk());
+            whenWritable(this::pull);
+        }
+    }
+
+    private void whenWritable(Runnable next) {
+        if (response.writeQueueFull()) {
+            response.drainHandler(v -> {
+                response.drainHandler(null);
+                next.run();
+            });
+        } else {
+            next.run();
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        if (!response.headWritten()) {
+            if (!routingContext.failed()) routingContext.fail(e);
+        } else if (!response.closed()) {
+            // chunked response already started, only closing tells client it is broken
+            response.close();
+        }
+    }
+
+    /**
+     * close result once, on the thread pulling it
+     */
+    private void finish() {
+        if (done) return;
+        done = true;
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // response outcome does not depend on it
+            }
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.mdvsc.vertx.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializer over a jackson object mapper of any data format, such as
+ * {@code new JacksonSerializer(new ObjectMapper(new CBORFactory()), "application/cbor", null)}
+ * with jackson-dataformat-cbor, smile or msgpack on classpath.
+ * Binary formats have no media encode, their String methods carry bytes as ISO-8859-1 chars.
+ * Output is indented only if mapper enables it, {@link #forType(Class)} prebuilds reader and writer of a type.
+ * Streamed results are framed as JSON arrays in JSON and as indefinite length arrays in CBOR,
+ * other formats cannot concatenate separately written values and get them collected.
+ */
+public class JacksonSerializer implements Serializer {
+
+    private static final String FORMAT_JSON = "JSON";
+    private static final String FORMAT_CBOR = "CBOR";
+    private static final byte CBOR_INDEFINITE_ARRAY = (byte) 0x9f;
+    private static final byte CBOR_BREAK = (byte) 0xff;
+
+    private final ObjectMapper mapper;
+    private final String mediaType;
+    private final String mediaEncode;
+    private final ObjectWriter writer;
+    private final Class<?> type;
+    private final ObjectWriter typeWriter;
+    private final ObjectReader typeReader;
+    private final String formatName;
+
+    /**
+     * @param mapper      object mapper of data format
+     * @param mediaType   media type of data format
+     * @param mediaEncode charset of textual format, null for binary format
+     */
+    public JacksonSerializer(ObjectMapper mapper, String mediaType, String mediaEncode) {
+        this.mapper = mapper;
+        this.mediaType = mediaType;
+        this.mediaEncode = mediaEncode;
+        this.writer = mapper.writer();
+        this.formatName = mapper.getFactory().getFormatName();
+        this.type = null;
+        this.typeWriter = null;
+        this.typeReader = null;
+    }
+
+    private JacksonSerializer(JacksonSerializer serializer, Class<?> type) {
+        this.mapper = serializer.mapper;
+        this.mediaType = serializer.mediaType;
+        this.mediaEncode = serializer.mediaEncode;
+        this.writer = serializer.writer;
+        this.formatName = serializer.formatName;
+        this.type = type;
+        // declared type writer skips properties of subclasses, writerOf only picks it for values of exact type
+        this.typeWriter = mapper.writerFor(type);
+        this.typeReader = mapper.readerFor(type);
+    }
+
+    @Override
+    public Serializer forType(Class<?> type) {
+        if (type == null || type == Object.class || type == void.class || type.isPrimitive() || type == this.type) return this;
+        return new JacksonSerializer(this, type);
+    }
+
+    @Override
+    public String mediaEncode() {
+        return mediaEncode;
+    }
+
+    @Override
+    public String mediaType() {
+        return mediaType;
+    }
+
+    @Override
+    public boolean isSequenceStreamable() {
+        return FORMAT_JSON.equals(formatName) || FORMAT_CBOR.equals(formatName);
+    }
+
+    @Override
+    public void sequenceStart(Buffer buffer) {
+        if (FORMAT_CBOR.equals(formatName)) buffer.appendByte(CBOR_INDEFINITE_ARRAY); else Serializer.super.sequenceStart(buffer);
+    }
+
+    @Override
+    public void sequenceSeparator(Buffer buffer) {
+        if (!FORMAT_CBOR.equals(formatName)) Serializer.super.sequenceSeparator(buffer);
+    }
+
+    @Override
+    public void sequenceEnd(Buffer buffer) {
+        if (FORMAT_CBOR.equals(formatName)) buffer.appendByte(CBOR_BREAK); else Serializer.super.sequenceEnd(buffer);
+    }
+
+    @Override
+    public String serialize(Object object) {
+        try {
+            return mediaEncode == null
+                    ? new String(writerOf(object).writeValueAsBytes(object), StandardCharsets.ISO_8859_1)
+                    : writerOf(object).writeValueAsString(object);
+        } catch (Exception e) {
+            throw new EncodeException("Failed to encode as " + mediaType + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public <T> T deserialize(String content, Class<T> clz) {
+        try {
+            return mediaEncode == null
+                    ? readerOf(clz).readValue(content.getBytes(StandardCharsets.ISO_8859_1))
+                    : readerOf(clz).readValue(content);
+        } catch (Exception e) {
+            throw new DecodeException("Failed to decode:" + e.getMessage());
+        }
+    }
+
+    @Override
+    public void serialize(Object object, Buffer buffer) {
+        try {
+            writerOf(object).writeValue(new BufferOutputStream(buffer), object);
+        } catch (Exception e) {
+            throw new EncodeException("Failed to encode as " + mediaType + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public <T> T deserialize(Buffer content, Class<T> clz) {
+        try {
+            return readerOf(clz).readValue((InputStream) new ByteBufInputStream(content.getByteBuf()));
+        } catch (Exception e) {
+            throw new DecodeException("Failed to decode:" + e.getMessage());
+        }
+    }
+
+    private ObjectWriter writerOf(Object object) {
+        return object != null && object.getClass() == type ? typeWriter : writer;
+    }
+
+    private ObjectReader readerOf(Class<?> clz) {
+        return clz == type ? typeReader : mapper.readerFor(clz);
+    }
+
+    /**
+     * appends written bytes to a vertx buffer, which grows on heap as needed.
+     * Not a pooled buffer, response keeps buffers it is given unreleasable, pooled memory would never return.
+     */
+    static final class BufferOutputStream extends OutputStream {
+
+        private final Buffer buffer;
+
+        BufferOutputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.mdvsc.vertx.rest;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks of equal keys one after another and tasks of other keys in parallel, for {@link Blocking#orderBy()}.
+ * Keys hash to a fixed number of stripes, each a lock free queue drained by one worker at a time,
+ * keys sharing a stripe are ordered together.
+ */
+final class KeyedSerialExecutor {
+
+    private static final int STRIPES = 256;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    KeyedSerialExecutor() {
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Stripe();
+    }
+
+    /**
+     * queue task after earlier tasks of key
+     * @param key    order key, nullable
+     * @param task   task to run on a worker
+     * @param reject task to run instead if no worker takes the stripe
+     * @return stripe to dispatch to a worker, null if a worker is already draining it
+     */
+    Stripe submit(Object key, Runnable task, Runnable reject) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        final Stripe stripe = stripes[hash & (STRIPES - 1)];
+        stripe.tasks.add(new Task(task, reject));
+        return stripe.size.getAndIncrement() == 0 ? stripe : null;
+    }
+
+    static final class Stripe {
+
+        private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * run queued tasks until stripe is empty, including tasks queued meanwhile
+         */
+        void drain() {
+            do {
+                tasks.poll().task.run();
+            } while (size.decrementAndGet() > 0);
+        }
+
+        /**
+         * reject queued tasks until stripe is empty, when worker pool refuses the stripe
+         */
+        void reject() {
+            do {
+                tasks.poll().reject.run();
+            } while (size.decrementAndGet() > 0);
+        }
+
+    }
+
+    private static final class Task {
+
+        final Runnable task;
+        final Runnable reject;
+
+        Task(Runnable task, Runnable reject) {
+            this.task = task;
+            this.reject = reject;
+        }
+
+    }
+
+}
@@ -1,99 +1,158 @@
 package org.mdvsc.vertx.rest;
 
-import io.vertx.core.MultiMap;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.http.HttpServerRequest;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.FileUpload;
-import io.vertx.ext.web.RoutingContext;
-import org.mdvsc.vertx.collection.GenericMultiMap;
 import org.mdvsc.vertx.utils.CollectionUtils;
 import org.mdvsc.vertx.utils.StringUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MethodCache {
 
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
     private final Method method;
     private final Annotation[] annotations;
     private final Parameter[] parameters;
-    private final Map<Parameter, Annotation[]> parameterMap = new HashMap<>();
+    private final Annotation[][] parameterAnnotations;
+    private final ParameterBinder[] binders;
+    private final MethodInvoker invoker;
     private final Class returnType;
+    private final TypedSerializers returnSerializers;
+    private final boolean[] keyParameters;
+    private final ResponseCache responseCache;
+    private final CoalescedCalls coalescedCalls;
+    private final ETag entityTag;
+    private final MethodInvoker versionInvoker;
+    private final boolean versionTakesArguments;
+    private final String cacheControl;
+    private final ConcurrencyLimit concurrencyLimit;
     private int annotatedParameterSize;
     private int mapParameterSize;
     private int fileParameterSize;
     private int defaultValueParameterSize;
+    private final List<Requirement> requirements = new ArrayList<>();
+    private boolean isBindable;
+    private boolean isStreamingBody;
+    private boolean isReadingBody;
     private boolean isHandleEnd;
     private boolean isBlocking;
     private boolean isOrderBlocking;
+    private String blockingPool;
+    private WorkerPool workerPool;
+    private String orderBy;
+    private boolean isVirtualBlocking;
+    private int orderByIndex = -1;
+    private KeyedSerialExecutor orderedExecutor;
 
     MethodCache(Method method) {
+        this(method, MethodInvoker.create(method, false), new ParamConverters());
+    }
+
+    MethodCache(Method method, MethodInvoker invoker, ParamConverters converters) {
         this.method = method;
+        this.invoker = invoker;
         this.returnType = method.getReturnType();
+        this.returnSerializers = new TypedSerializers(returnType);
         this.parameters = method.getParameters();
         this.annotations = method.getDeclaredAnnotations();
+        this.parameterAnnotations = new Annotation[parameters.length][];
+        this.binders = new ParameterBinder[parameters.length];
         checkAnnotations();
-        checkParameterSize();
+        checkParameterSize(converters);
+        if (orderBy != null) {
+            for (int i = 0; i < binders.length && orderByIndex < 0; i++) {
+                if (binders[i].isAnnotated() && orderBy.equals(binders[i].name)) orderByIndex = i;
+            }
+            if (orderByIndex < 0) throw new IllegalArgumentException(String.format("Order parameter %s of %s not found.", orderBy, method));
+        }
+        this.keyParameters = new boolean[binders.length];
+        for (int i = 0; i < binders.length; i++) keyParameters[i] = binders[i].isAnnotated();
+        final Cacheable cacheable = firstAnnotation(Cacheable.class);
+        final boolean isResponseShareable = !isStreamingBody && !isHandleEnd;
+        this.responseCache = cacheable != null && isResponseShareable ? new ResponseCache(cacheable) : null;
+        final Coalesce coalesce = firstAnnotation(Coalesce.class);
+        this.coalescedCalls = coalesce != null && isResponseShareable ? new CoalescedCalls(coalesce.timeout()) : null;
+        this.entityTag = firstAnnotation(ETag.class);
+        final Method versionMethod = entityTag == null ? null : findVersionMethod(entityTag.version());
+        this.versionInvoker = versionMethod == null ? null : MethodInvoker.create(versionMethod, false);
+        this.versionTakesArguments = versionMethod != null && versionMethod.getParameterCount() > 0;
+        CacheControl cacheControl = firstAnnotation(CacheControl.class);
+        if (cacheControl == null) cacheControl = method.getDeclaringClass().getAnnotation(CacheControl.class);
+        this.cacheControl = cacheControl == null ? null : HttpCaching.cacheControl(cacheControl);
+        ConcurrencyLimit concurrencyLimit = firstAnnotation(ConcurrencyLimit.class);
+        if (concurrencyLimit == null) concurrencyLimit = method.getDeclaringClass().getAnnotation(ConcurrencyLimit.class);
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    private Method findVersionMethod(String name) {
+        if (StringUtils.isNullOrEmpty(name)) return null;
+        final Class<?> clz = method.getDeclaringClass();
+        try {
+            return clz.getMethod(name, method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            try {
+                return clz.getMethod(name);
+            } catch (NoSuchMethodException ignored) {
+                throw new IllegalArgumentException(String.format("Version method %s of %s not found.", name, method));
+            }
+        }
     }
 
     private void checkAnnotations() {
-        boolean isBlocking = false, isOrderBlocking = false, isHandleEnd = false;
+        boolean isBlocking = false, isOrderBlocking = false, isVirtualBlocking = false, isHandleEnd = false;
+        String blockingPool = null, orderBy = null;
         for (Annotation a : annotations) {
             if (a instanceof Blocking) {
                 Blocking blocking = (Blocking)a;
                 isBlocking = true;
                 isOrderBlocking = blocking.value();
+                if (!blocking.pool().isEmpty()) blockingPool = blocking.pool();
+                if (!blocking.orderBy().isEmpty()) orderBy = blocking.orderBy();
+                isVirtualBlocking = blocking.virtual();
             } else if (a instanceof HandleEnd) {
                 isHandleEnd = true ;
             }
         }
         this.isBlocking = isBlocking;
         this.isOrderBlocking = isOrderBlocking;
+        this.blockingPool = blockingPool;
+        this.orderBy = orderBy;
+        this.isVirtualBlocking = isVirtualBlocking;
         this.isHandleEnd = isHandleEnd;
     }
 
-    private void checkParameterSize() {
+    private void checkParameterSize(ParamConverters converters) {
         int size = 0;
         int defaultValueSize = 0;
         int mapSize = 0;
         int fileSize = 0;
-        for (Parameter parameter : parameters) {
-            Annotation[] annotations = parameter.getDeclaredAnnotations();
-            parameterMap.put(parameter, annotations);
-            for (Annotation annotation : annotations) {
-                if (annotation instanceof FieldMap
-                            || annotation instanceof QueryMap
-                            || annotation instanceof HeaderMap
-                            || annotation instanceof FileMap
-                            || annotation instanceof PathMap) {
-                    mapSize++;
-                } else if (annotation instanceof Field) {
-                    if (!Constants.isNullValue(((Field)annotation).defaultValue())) defaultValueSize++;
-                } else if (annotation instanceof Query) {
-                    if (!Constants.isNullValue(((Query)annotation).defaultValue())) defaultValueSize++;
-                } else if (annotation instanceof Header) {
-                    if (!Constants.isNullValue(((Header)annotation).defaultValue())) defaultValueSize++;
-                } else if (annotation instanceof Path) {
-                    if (!Constants.isNullValue(((Path)annotation).defaultValue())) defaultValueSize++;
-                } else if (annotation instanceof Body) {
-                    if (!Constants.isNullValue(((Body)annotation).defaultValue())) defaultValueSize++;
-                } else if (annotation instanceof File) {
-                    fileSize++;
-                } else continue;
-                size++;
-                break;
-            }
+        boolean isBindable = true;
+        boolean isStreamingBody = false;
+        boolean isReadingBody = firstAnnotation(BodyConfig.class) != null;
+        for (int i = 0; i < parameters.length; i++) {
+            ParameterBinder binder = ParameterBinder.create(parameters[i], converters);
+            binders[i] = binder;
+            parameterAnnotations[i] = parameters[i].getDeclaredAnnotations();
+            if (!binder.isBindable()) isBindable = false;
+            if (binder.isStreamingBody()) isStreamingBody = true;
+            if (binder.readsBody()) isReadingBody = true;
+            if (binder.getRequirement() != null) requirements.add(binder.getRequirement());
+            if (!binder.isAnnotated()) continue;
+            if (binder.isMap()) mapSize++;
+            if (binder.isFile()) fileSize++;
+            if (binder.hasDefaultValue()) defaultValueSize++;
+            size++;
         }
         annotatedParameterSize = size;
         mapParameterSize = mapSize;
         fileParameterSize = fileSize;
         defaultValueParameterSize = defaultValueSize;
+        this.isBindable = isBindable;
+        this.isStreamingBody = isStreamingBody;
+        this.isReadingBody = isReadingBody;
     }
 
     /**
@@ -112,6 +171,17 @@ public class MethodCache {
         return method;
     }
 
+    /**
+     * invoke method through invoker created when cached
+     * @param target method owner
+     * @param arguments method arguments
+     * @return method return value
+     * @throws Throwable exception thrown by method, not wrapped
+     */
+    Object invoke(Object target, Object[] arguments) throws Throwable {
+        return invoker.invoke(target, arguments);
+    }
+
     /**
      * get return type
      * @return method return type
@@ -120,6 +190,85 @@ public class MethodCache {
         return returnType;
     }
 
+    /**
+     * response cache of {@link Cacheable} method
+     * @return cache, null if method is not cached
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * in-flight calls of {@link Coalesce} method
+     * @return calls, null if method is not coalesced
+     */
+    CoalescedCalls getCoalescedCalls() {
+        return coalescedCalls;
+    }
+
+    /**
+     * key of call, for response cache and coalesced calls
+     * @param arguments bound arguments
+     * @param serializer response serializer
+     * @return key
+     */
+    CallKey callKey(Object[] arguments, Serializer serializer) {
+        return new CallKey(arguments, keyParameters, serializer);
+    }
+
+    /**
+     * ETag annotation of method
+     * @return annotation, null if responses are not tagged
+     */
+    public ETag getEntityTag() {
+        return entityTag;
+    }
+
+    /**
+     * method has a version method for its ETag
+     * @return true if yes
+     */
+    boolean hasVersion() {
+        return versionInvoker != null;
+    }
+
+    /**
+     * invoke version method of ETag
+     * @param target method owner
+     * @param arguments route method arguments
+     * @return version token, null for none
+     * @throws Throwable exception thrown by version method
+     */
+    Object invokeVersion(Object target, Object[] arguments) throws Throwable {
+        return versionInvoker.invoke(target, versionTakesArguments ? arguments : NO_ARGUMENTS);
+    }
+
+    /**
+     * Cache-Control header value of method or its class
+     * @return header value, null for none
+     */
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * serializer of return values, with writer prebuilt for return type
+     * @param serializer negotiated serializer of request
+     * @return specialized serializer
+     */
+    Serializer returnSerializer(Serializer serializer) {
+        return returnSerializers.get(serializer);
+    }
+
+    /**
+     * resolve serializers specialized for return type and body parameter types ahead of requests
+     * @param serializer serializer
+     */
+    void resolveSerializers(Serializer serializer) {
+        returnSerializers.get(serializer);
+        for (ParameterBinder binder : binders) binder.resolveSerializer(serializer);
+    }
+
     /**
      * get method parameters
      * @return parameters
@@ -162,6 +311,71 @@ public class MethodCache {
         return isOrderBlocking;
     }
 
+    /**
+     * name of worker pool of blocking method.
+     * @return pool name, null for shared vertx worker pool
+     */
+    public String getBlockingPool() {
+        return blockingPool;
+    }
+
+    /**
+     * worker pool running blocking method.
+     * @return worker pool, null for shared vertx worker pool
+     */
+    public WorkerPool getWorkerPool() {
+        return workerPool;
+    }
+
+    void setWorkerPool(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * is blocking method invoked on virtual threads, when runtime supports them.
+     * @return true if yes
+     */
+    public boolean isVirtualBlocking() {
+        return isVirtualBlocking;
+    }
+
+    void setVirtualBlocking(boolean virtualBlocking) {
+        this.isVirtualBlocking = virtualBlocking;
+    }
+
+    /**
+     * name of parameter ordering blocking calls.
+     * @return parameter name, null if not ordered by parameter
+     */
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * order key of call
+     * @param arguments bound arguments
+     * @return value of order parameter
+     */
+    Object orderKey(Object[] arguments) {
+        return arguments[orderByIndex];
+    }
+
+    KeyedSerialExecutor getOrderedExecutor() {
+        return orderedExecutor;
+    }
+
+    void setOrderedExecutor(KeyedSerialExecutor orderedExecutor) {
+        this.orderedExecutor = orderedExecutor;
+    }
+
+    /**
+     * concurrency limit of method or its class.
+     * @return limit, null if not limited
+     */
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
     /**
      * is method has handled end
      * @return true if yes
@@ -176,7 +390,10 @@ public class MethodCache {
      * @return annotations
      */
     public Annotation[] getParamterAnnotations(Parameter parameter) {
-        return parameterMap.get(parameter);
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].equals(parameter)) return parameterAnnotations[i];
+        }
+        return null;
     }
 
     /**
@@ -236,172 +453,72 @@ public class MethodCache {
     }
 
     /**
-     * build method invoke args
-     *
-     * @param context    routing context
-     * @param contextMap context map
-     * @return arguments to this method
-     * @throws Exception exception if arguments can't be build.
-     */
-    Object[] buildInvokeArgs(final RoutingContext context, Serializer serializer, ContextProvider provider, Map<Class, Object> contextMap, boolean withDefaultValue) throws Exception {
-        HttpServerRequest request = context.request();
-        final Object[] args = new Object[parameters.length];
-        for (int i = 0; i < parameters.length; i++) {
-            final Parameter parameter = parameters[i];
-            final Class parameterType = parameter.getType();
-            Object value = null;
-            boolean isContext = false;
-            Annotation[] annotations = parameterMap.get(parameter);
-            Separator separator = CollectionUtils.firstElement(annotations, Separator.class);
-            for (Annotation annotation : annotations) {
-                if (annotation instanceof Query) {
-                    Query a = (Query) annotation;
-                    value = transParams(request.params().getAll(a.value()), withDefaultValue ? a.defaultValue() : null, parameterType, separator, serializer);
-                    break;
-                } else if (annotation instanceof Header) {
-                    Header a = (Header) annotation;
-                    value = transParams(request.headers().getAll(a.value()), withDefaultValue ? a.defaultValue() : null, parameterType, separator, serializer);
-                    break;
-                } else if (annotation instanceof Field) {
-                    Field a = (Field) annotation;
-                    value = transParams(request.formAttributes().getAll(a.value()), withDefaultValue ? a.defaultValue() : null, parameterType, separator, serializer);
-                    break;
-                } else if (annotation instanceof Path) {
-                    Path a = (Path) annotation;
-                    value = transParam(context.pathParam(a.value()), withDefaultValue ? a.defaultValue() : null, parameterType, separator, serializer);
-                    break;
-                } else if (annotation instanceof File) {
-                    Stream<FileUpload> files = context.fileUploads().stream().filter(fileUpload -> ((File) annotation).value().equals(fileUpload.name()));
-                    if (parameterType.isArray()) {
-                        value = CollectionUtils.toTypedArray(files.collect(Collectors.toList()), parameterType.getComponentType());
-                    } else if (List.class.isAssignableFrom(parameterType)) {
-                        value = files.collect(Collectors.toList());
-                    } else {
-                        value = files.findFirst().orElse(null);
-                    }
-                    break;
-                } else if (annotation instanceof FileSet) {
-                    value = context.fileUploads();
-                    break;
-                } else if (annotation instanceof FileMap) {
-                    value = context.fileUploads().parallelStream().collect(Collectors.toMap(FileUpload::name, (file) -> file, (k, v) -> v));
-                    break;
-                } else if (annotation instanceof QueryMap) {
-                    value = transMap(request.params(), parameterType);
-                    break;
-                } else if (annotation instanceof HeaderMap) {
-                    value = transMap(request.headers(), parameterType);
-                    break;
-                } else if (annotation instanceof FieldMap) {
-                    value = transMap(request.formAttributes(), parameterType);
-                    break;
-                } else if (annotation instanceof PathMap) {
-                    value = context.pathParams();
-                    break;
-                } else if (annotation instanceof Body) {
-                    if (parameterType == JsonObject.class) {
-                        value = context.getBodyAsJson();
-                    } else if (parameterType == JsonArray.class) {
-                        value = context.getBodyAsJsonArray();
-                    } else if (parameterType == Buffer.class) {
-                        value = context.getBody();
-                    } else if (parameterType == FileUpload.class) {
-                        value = context.fileUploads().iterator().next();
-                    } else {
-                        value = transParam(context.getBodyAsString(), withDefaultValue ? ((Body)annotation).defaultValue() : null, parameterType, separator, serializer);
-                    }
-                    break;
-                } else if (annotation instanceof Context) {
-                    value = provideContext(parameter.getType(), provider, contextMap);
-                    isContext = true;
-                    break;
-                }
-            }
-            if (value == null && !isContext) throw new IllegalAccessException();
-            args[i] = value;
-        }
-        return args;
+     * can this method ever be bound from a request, false if some parameter has no binding annotation
+     * @return true if yes
+     */
+    boolean isBindable() {
+        return isBindable;
     }
 
-    private Object provideContext(final Class<?> clz, final ContextProvider provider, final Map<Class, Object> map) {
-        Object object = map == null ? null : map.get(clz);
-        if (object == null) {
-            object = provider.provideContext(clz);
-        }
-        return object;
-    }
-
-    private static Object transParams(final List<String> params, final String defaultValue, final Class<?> target, final Separator separator, final Serializer serializer) {
-        if (params.isEmpty() && Constants.isNullValue(defaultValue)) return null;
-        else if (!target.isArray() && !List.class.isAssignableFrom(target)) return transParam(params.isEmpty() ? null : params.get(0), defaultValue, target, separator, serializer);
-        if (separator != null) {
-            Class element = target.isArray() ? target.getComponentType() : separator.type();
-            Object r = params.stream().flatMap(s -> {
-                Object value = transListParam(s, element, separator, serializer);
-                if (value != null) return ((List) value).stream(); else return Stream.empty();
-            }).collect(Collectors.toList());
-            List list = (List)r;
-            if (list.isEmpty()) list = transListParam(defaultValue, element, separator, serializer);
-            return list == null ? null : target.isArray() ? CollectionUtils.toTypedArray(list, target.getComponentType()) : list;
-        } else {
-            final Class element = target.getComponentType();
-            if (element == null) return params.isEmpty() ? Collections.singleton(defaultValue) : params;
-            List<Object> list = params.stream()
-                    .map(s -> transSimpleParam(s, element, serializer))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-            if (list.isEmpty()) list = Collections.singletonList(transSimpleParam(defaultValue, element, serializer));
-            if (list.get(0) == null) return null;
-            if (target.isArray()) return CollectionUtils.toTypedArray(list, element);
-            return list;
-        }
+    /**
+     * method reads request body as a stream
+     * @return true if yes
+     */
+    public boolean isStreamingBody() {
+        return isStreamingBody;
     }
 
-    private static Object transParam(String param, String defaultValue, Class<?> target, Class<?> element, String separator, String start, String end, Serializer serializer) {
-        defaultValue = Constants.processNullValue(defaultValue);
-        if (target.isArray()) element = target.getComponentType();
-        return StringUtils.transObject(param
-                , defaultValue
-                , target
-                , element
-                , StringUtils.isNullOrEmpty(separator) ? null : separator
-                , StringUtils.isNullOrEmpty(start) ? null : start
-                , StringUtils.isNullOrEmpty(end) ? null : end
-                , serializer);
-    }
-
-    private static Object transParam(String param, String defaultValue, Class<?> target, Separator separator, Serializer serializer) {
-        Class type = null;
-        String sep = null;
-        String start = null;
-        String end = null;
-        if (separator != null) {
-            type = separator.type();
-            sep = separator.value();
-            start = separator.start();
-            end = separator.end();
-        }
-        return transParam(param, defaultValue, target, type, sep, start, end, serializer);
+    /**
+     * method reads aggregated request body, form attributes or uploads
+     * @return true if yes
+     */
+    public boolean isReadingBody() {
+        return isReadingBody;
     }
 
-    private static List transListParam(String param, Class<?> element, Separator separator, Serializer serializer) {
-        String sep = null;
-        String start = null;
-        String end = null;
-        if (separator != null) {
-            sep = separator.value();
-            start = separator.start();
-            end = separator.end();
-        }
-        return (List)transParam(param, null, List.class, element, sep, start, end, serializer);
+    /**
+     * named request values this method needs before its arguments can be built
+     * @return requirement list
+     */
+    List<Requirement> getRequirements() {
+        return requirements;
     }
 
-    private static Object transSimpleParam(String param, Class<?> target, Serializer serializer) {
-        return transParam(param, null, target, null, null, null,  null, serializer);
+    /**
+     * bind request values to method invoke args, never throws on missing or malformed values
+     *
+     * @param context    bind context of request
+     * @param withDefaultValue use parameter default value when value absent
+     * @return bind result, holding arguments to this method or the failed parameter
+     */
+    BindResult bind(final BindContext context, boolean withDefaultValue) {
+        final ParameterBinder[] binders = this.binders;
+        final Object[] args = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            final ParameterBinder binder = binders[i];
+            final Object value = binder.bind(context, withDefaultValue);
+            if (value == StringUtils.INVALID_VALUE) return BindResult.invalid(i, binder.name, binder.type);
+            if (value == null && !binder.isOptional()) return BindResult.missing(i, binder.name);
+            args[i] = value;
+        }
+        return BindResult.bound(args);
     }
 
-    private static Object transMap(MultiMap content, Class target) {
-        return target == MultiMap.class ? new GenericMultiMap(content) : CollectionUtils.toMap(content);
+    /**
+     * a named request value which must be present to bind a parameter
+     */
+    static final class Requirement {
+
+        final ParameterSource source;
+        final String name;
+        final boolean hasDefaultValue;
+
+        Requirement(ParameterSource source, String name, String defaultValue) {
+            this.source = source;
+            this.name = name;
+            this.hasDefaultValue = !Constants.isNullValue(defaultValue);
+        }
+
     }
 
 }
@@ -1,9 +1,17 @@
 package org.mdvsc.vertx.rest;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.web.RoutingContext;
 
+import static io.vertx.core.http.HttpHeaders.CACHE_CONTROL;
+import static io.vertx.core.http.HttpHeaders.ETAG;
+
 /**
  * @author HanikLZ
  * @since 2017/4/2
@@ -15,22 +23,40 @@ public class MethodCaller {
     private final Object[] arguments;
     private final RoutingContext context;
     private final Serializer serializer;
+    private final io.vertx.core.Context vertxContext;
+    private final int streamChunkSize;
+    private final ResultAdapters resultAdapters;
+    private final ContextCompletions completions;
 
     private boolean ended = false;
+    private boolean cacheHit = false;
+    private CallKey cacheKey = null;
+    private CoalescedCalls.Flight flight = null;
+    private String entityTag = null;
+    private boolean versionChecked = false;
+    private long flightTimer = -1;
+
+    private static final Class rxJavaObservable = findClass("io.reactivex.Observable");
+    private static final Class reactivePublisher = findClass("org.reactivestreams.Publisher");
 
-    private static final Class rxJavaSingle;
-    static {
-        Class s = null;
-        try { s = io.reactivex.Single.class; } catch (Exception ignored) { }
-        rxJavaSingle = s;
+    static Class findClass(String name) {
+        try {
+            return Class.forName(name, false, MethodCaller.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
     }
 
-    MethodCaller(MethodCache methodCache, Object caller, Object[] arguments, RoutingContext context, Serializer serializer) {
+    MethodCaller(MethodCache methodCache, Object caller, Object[] arguments, RoutingContext context, Serializer serializer, int streamChunkSize, ResultAdapters resultAdapters) {
         this.methodCache = methodCache;
         this.caller = caller;
         this.arguments = arguments;
         this.context = context;
         this.serializer = serializer;
+        this.vertxContext = context.vertx().getOrCreateContext();
+        this.streamChunkSize = streamChunkSize;
+        this.resultAdapters = resultAdapters;
+        this.completions = methodCache.isBlocking() ? ContextCompletions.of(vertxContext) : null;
     }
 
     public RoutingContext getContext() {
@@ -61,20 +87,165 @@ public class MethodCaller {
         return ended;
     }
 
+    /**
+     * @return true if response is answered from response cache without calling method
+     */
+    boolean isCacheHit() {
+        return cacheHit;
+    }
+
     public void endWithCall() {
+        if (methodCache.hasVersion() && !versionChecked) {
+            if (!methodCache.isBlocking()) {
+                if (!checkVersion()) return;
+            } else if (methodCache.getResponseCache() != null || methodCache.getCoalescedCalls() != null) {
+                // version method may block too, cache and coalesced calls are looked up once it is known
+                dispatchBlocking(this::checkVersionBlocking);
+                setEnd();
+                return;
+            } // else checked by callBlocking right before invoking
+        }
+        final ResponseCache responseCache = methodCache.getResponseCache();
+        final CoalescedCalls coalescedCalls = methodCache.getCoalescedCalls();
+        final CallKey key = responseCache != null || coalescedCalls != null ? methodCache.callKey(arguments, serializer) : null;
+        if (responseCache != null) {
+            cacheKey = key;
+            final Buffer cached = responseCache.get(key);
+            if (cached != null) {
+                cacheHit = true;
+                putCacheControl();
+                endWithBody(cached);
+                setEnd();
+                return;
+            }
+        }
+        if (coalescedCalls != null) {
+            final CoalescedCalls.Flight flight = coalescedCalls.join(key, this);
+            if (!flight.isLedBy(this)) {
+                awaitFlight(flight, coalescedCalls.getTimeout());
+                setEnd();
+                return;
+            }
+            this.flight = flight;
+            // response closed before call ends, such as by a gone client, shares nothing
+            ResponseCloseHandlers.add(context, v -> releaseFlight());
+        }
+        invokeAndEnd();
+        setEnd();
+    }
+
+    private void invokeAndEnd() {
         if (methodCache.isBlocking()) { // to block if method has return
-            context.vertx().executeBlocking(fut -> {
+            dispatchBlocking(this::callBlocking);
+        } else if (flight != null) {
+            try {
                 endWithCallImpl();
-                fut.complete();
-            }, methodCache.isOrderBlocking(), res -> {
-                if (res.failed() && !context.failed()) {
-                    context.fail(res.cause());
-                }
-            });
+            } catch (RuntimeException e) {
+                flight.fail(e);
+                throw e;
+            }
         } else {
             endWithCallImpl();
         }
-        setEnd();
+    }
+
+    /**
+     * run task of this call on worker, virtual thread or ordered executor of blocking method.
+     * Nothing is handed back to context besides completions, so a call costs one context hop
+     * @param task task, which hands its outcome back to context by completions
+     */
+    private void dispatchBlocking(Runnable task) {
+        final Runnable guarded = () -> runGuarded(task);
+        final KeyedSerialExecutor orderedExecutor = methodCache.getOrderedExecutor();
+        if (orderedExecutor == null) {
+            if (!executeBlocking(guarded, methodCache.isOrderBlocking())) rejectBlocking();
+        } else {
+            final KeyedSerialExecutor.Stripe stripe = orderedExecutor.submit(methodCache.orderKey(arguments),
+                    guarded, () -> vertxContext.runOnContext(v -> rejectBlocking()));
+            // null if a worker draining stripe of key calls this after earlier calls
+            if (stripe != null && !executeBlocking(stripe::drain, false)) stripe.reject();
+        }
+    }
+
+    private boolean executeBlocking(Runnable task, boolean ordered) {
+        if (methodCache.isVirtualBlocking() && !ordered && VirtualThreads.isSupported()) {
+            VirtualThreads.execute(task);
+            return true;
+        }
+        // without result handler vertx hands nothing back to context
+        final Handler<Future<Object>> blocking = fut -> task.run();
+        final WorkerPool workerPool = methodCache.getWorkerPool();
+        if (workerPool != null) return workerPool.executeBlocking(blocking, ordered, null);
+        context.vertx().executeBlocking(blocking, ordered, null);
+        return true;
+    }
+
+    /**
+     * pull streamed result of blocking method on its kind of thread, counted by its worker pool but past its
+     * queue bound, which admits calls only. No result is handed back to context
+     */
+    private void executePull(Runnable pull) {
+        if (methodCache.isVirtualBlocking() && VirtualThreads.isSupported()) {
+            VirtualThreads.execute(pull);
+            return;
+        }
+        final Handler<Future<Object>> blocking = fut -> pull.run();
+        final WorkerPool workerPool = methodCache.getWorkerPool();
+        if (workerPool != null) workerPool.executeContinuation(blocking, false, null);
+        else context.vertx().executeBlocking(blocking, false, null);
+    }
+
+    private void rejectBlocking() {
+        releaseFlight(); // followers try pool themselves
+        if (!context.failed()) context.fail(HttpResponseStatus.SERVICE_UNAVAILABLE.code());
+    }
+
+    /**
+     * run task off context, failures it leaves end this call only by completions,
+     * and leave later calls of same worker or ordered stripe running
+     */
+    private void runGuarded(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            completions.complete(() -> failCall(e));
+        }
+    }
+
+    /**
+     * wait for coalesced call led by another caller, call method itself if it takes longer than timeout
+     */
+    private void awaitFlight(CoalescedCalls.Flight flight, long timeout) {
+        flight.await(this);
+        if (timeout > 0) flightTimer = context.vertx().setTimer(timeout, id -> {
+            flightTimer = -1;
+            final HttpServerResponse response = context.response();
+            if (flight.leave(this) && !response.ended() && !response.closed()) invokeAndEnd();
+        });
+    }
+
+    /**
+     * end with result of coalesced call led by another caller, on event loop of this request
+     * @param flight finished flight
+     */
+    void endWithFlight(CoalescedCalls.Flight flight) {
+        vertxContext.runOnContext(v -> {
+            if (flightTimer >= 0) {
+                context.vertx().cancelTimer(flightTimer);
+                flightTimer = -1;
+            }
+            final HttpServerResponse response = context.response();
+            if (response.ended() || response.closed()) return;
+            if (flight.getFailure() != null) {
+                if (!context.failed()) context.fail(flight.getFailure());
+            } else if (!flight.isShared()) {
+                invokeAndEnd();
+            } else {
+                response.setStatusCode(flight.getStatusCode());
+                putCacheControl();
+                if (flight.getBody() == null) response.end(); else endWithBody(flight.getBody());
+            }
+        });
     }
 
     public void endWithFail(HttpResponseStatus status) {
@@ -91,25 +262,244 @@ public class MethodCaller {
         setEnd();
     }
 
+    /**
+     * call on worker or virtual thread, which only invokes, result is serialized and written on event loop of request
+     */
+    private void callBlocking() {
+        final Object result;
+        try {
+            if (methodCache.hasVersion() && !versionChecked) {
+                final String tag = versionTag(methodCache.invokeVersion(caller, arguments));
+                // request headers are complete and left alone once method is called
+                if (tag != null && HttpCaching.isNotModified(context.request(), tag)) {
+                    completions.complete(() -> endNotModified(tag));
+                    return;
+                }
+                entityTag = tag;
+            }
+            result = methodCache.invoke(caller, arguments);
+        } catch (Throwable exception) {
+            completions.complete(() -> failCall(exception));
+            return;
+        }
+        completions.complete(() -> {
+            try {
+                endWithReturn(result);
+            } catch (RuntimeException e) {
+                failCall(e);
+            }
+        });
+    }
+
+    private void failCall(Throwable exception) {
+        if (flight != null) flight.fail(exception);
+        if (!context.failed()) context.fail(exception);
+    }
+
     private void endWithCallImpl() {
-        HttpServerResponse response = context.response();
         Object result;
         try {
-            result = methodCache.getMethod().invoke(caller, arguments);
-        } catch (Exception exception) {
-            if (!context.failed()) {
-                context.fail(exception);
-            }
+            result = methodCache.invoke(caller, arguments);
+        } catch (Throwable exception) {
+            failCall(exception);
             return;
         }
+        endWithReturn(result);
+    }
+
+    private void endWithReturn(Object result) {
+        final HttpServerResponse response = context.response();
         if (!methodCache.isHandleEnd() && !response.ended()) {
-           if (result == null) response.end(); else if (rxJavaSingle != null && rxJavaSingle.isInstance(result)) {
-               io.reactivex.Single single = (io.reactivex.Single)result;
-               single.subscribe(o -> response.end(serializer.serialize(o)), throwable -> { if (!context.failed()) context.fail((Throwable) throwable); });
-           } else response.end(serializer.serialize(result));
+            putCacheControl();
+            endWithResult(result);
+        } else {
+            releaseFlight();
+        }
+        setEnd();
+    }
+
+    /**
+     * write returned or adapted result
+     */
+    private void endWithResult(Object result) {
+        final HttpServerResponse response = context.response();
+        final ResultAdapter<Object> adapter;
+        if (result == null) {
+            share(null);
+            response.end();
+        } else if ((adapter = resultAdapters.find(result)) != null) {
+            adapter.subscribe(result, this::endWithAsyncResult);
+        } else if (result instanceof ReadStream) {
+            releaseFlight();
+            ReadStream<Buffer> stream = (ReadStream<Buffer>) result;
+            if (isOnRequestContext()) pipeToResponse(stream); else vertxContext.runOnContext(v -> pipeToResponse(stream));
+        } else if (reactivePublisher != null && reactivePublisher.isInstance(result) || rxJavaObservable != null && rxJavaObservable.isInstance(result)) {
+            releaseFlight();
+            PublisherResponseWriter.write(result, context, vertxContext, serializer);
+        } else if (IteratorResponseWriter.supports(result, methodCache.getReturnType())) {
+            releaseFlight();
+            IteratorResponseWriter.write(result, context, vertxContext, serializer, streamChunkSize, methodCache.isBlocking() ? this::executePull : null);
+        } else endWithBody(share(cache(serialize(result))));
+    }
+
+    /**
+     * write value of async result on context of request
+     */
+    /**
+     * test if running on event loop of request, blocking code run by executeBlocking of request context reports
+     * the same current context from a worker thread
+     */
+    private boolean isOnRequestContext() {
+        return io.vertx.core.Vertx.currentContext() == vertxContext && io.vertx.core.Context.isOnEventLoopThread();
+    }
+
+    private void endWithAsyncResult(AsyncResult<Object> result) {
+        if (!isOnRequestContext()) {
+            vertxContext.runOnContext(v -> endWithAsyncResult(result));
+            return;
+        }
+        if (context.response().ended()) {
+            releaseFlight();
+            return;
+        }
+        Throwable failure = result.cause();
+        if (result.succeeded()) {
+            try {
+                endWithResult(result.result());
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            if (flight != null) flight.fail(failure);
+            if (!context.failed()) context.fail(failure);
+        }
+    }
+
+    /**
+     * streamed result or response ended by method, waiters of coalesced call call method themselves
+     */
+    private void releaseFlight() {
+        if (flight != null) flight.release();
+    }
+
+    private Buffer serialize(Object result) {
+        Buffer buffer = Buffer.buffer();
+        serializer.serialize(result, buffer);
+        return buffer;
+    }
+
+    /**
+     * tag response by version token of resource, end with 304 if client holds it already
+     * @return false if ended
+     */
+    private boolean checkVersion() {
+        final String tag;
+        try {
+            tag = versionTag(methodCache.invokeVersion(caller, arguments));
+        } catch (Throwable exception) {
+            endWithFail(exception);
+            return false;
+        }
+        if (tag != null && HttpCaching.isNotModified(context.request(), tag)) {
+            endNotModified(tag);
+            return false;
+        }
+        entityTag = tag;
+        return true;
+    }
+
+    /**
+     * check version on the thread of blocking method, then end with 304 or go on with call on context
+     */
+    private void checkVersionBlocking() {
+        final String tag;
+        try {
+            tag = versionTag(methodCache.invokeVersion(caller, arguments));
+        } catch (Throwable exception) {
+            completions.complete(() -> endWithFail(exception));
+            return;
         }
+        completions.complete(() -> {
+            if (tag != null && HttpCaching.isNotModified(context.request(), tag)) {
+                endNotModified(tag);
+                return;
+            }
+            entityTag = tag;
+            versionChecked = true;
+            endWithCall();
+        });
+    }
+
+    private String versionTag(Object version) {
+        return version == null ? null : HttpCaching.entityTag(version, methodCache.getEntityTag().weak());
+    }
+
+    private void endNotModified(String tag) {
+        putCacheControl();
+        context.response().putHeader(ETAG, tag).setStatusCode(HttpResponseStatus.NOT_MODIFIED.code()).end();
         setEnd();
     }
 
+    /**
+     * end with serialized body, tagged if method is, or with 304 if client holds it already
+     */
+    private void endWithBody(Buffer body) {
+        final HttpServerResponse response = context.response();
+        final ETag tag = methodCache.getEntityTag();
+        if (tag != null && response.getStatusCode() == HttpResponseStatus.OK.code()) {
+            final String entityTag = this.entityTag != null ? this.entityTag : HttpCaching.entityTag(body, tag.weak());
+            response.putHeader(ETAG, entityTag);
+            if (HttpCaching.isNotModified(context.request(), entityTag)) {
+                response.setStatusCode(HttpResponseStatus.NOT_MODIFIED.code()).end();
+                return;
+            }
+        }
+        response.end(body);
+    }
+
+    private void putCacheControl() {
+        final String cacheControl = methodCache.getCacheControl();
+        final HttpServerResponse response = context.response();
+        if (cacheControl != null && !response.headWritten() && !response.headers().contains(CACHE_CONTROL)) {
+            response.putHeader(CACHE_CONTROL, cacheControl);
+        }
+    }
+
+    /**
+     * share serialized result with waiters of coalesced call
+     */
+    private Buffer share(Buffer body) {
+        if (flight != null) flight.complete(context.response().getStatusCode(), body);
+        return body;
+    }
+
+    /**
+     * put serialized result to response cache if method is cached and response is ok
+     */
+    private Buffer cache(Buffer body) {
+        if (cacheKey != null && context.response().getStatusCode() == HttpResponseStatus.OK.code()) {
+            methodCache.getResponseCache().put(cacheKey, body);
+        }
+        return body;
+    }
+
+    /**
+     * pipe returned stream to chunked response, pipe pauses stream while response write queue is full
+     */
+    private void pipeToResponse(ReadStream<Buffer> stream) {
+        HttpServerResponse response = context.response();
+        if (!response.headWritten()) response.setChunked(true);
+        stream.pipe().endOnFailure(false).to(response, result -> {
+            if (result.failed()) {
+                if (!response.headWritten()) {
+                    if (!context.failed()) context.fail(result.cause());
+                } else if (!response.closed()) {
+                    response.close();
+                }
+            }
+        });
+    }
+
 }
 
@@ -1,16 +1,19 @@
 package org.mdvsc.vertx.rest;
 
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
-import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static io.vertx.core.http.HttpHeaders.CONTENT_LENGTH;
 import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+import static io.vertx.core.http.HttpHeaders.RETRY_AFTER;
 
 /**
  * Vertx route handler
@@ -20,91 +23,214 @@ class MethodHandler implements Handler<RoutingContext> {
     private final List<MethodCache> handleMethods = new ArrayList<>();
     private final Class resourceClass;
     private final ContextProvider contextProvider;
-
-    MethodHandler(Class resourceClass, ContextProvider provider) {
+    private final boolean useReflection;
+    private final ParamConverters paramConverters;
+    private final int streamChunkSize;
+    private final Serializers serializers;
+    private final ResultAdapters resultAdapters;
+    private final RouteBodyHandler bodyHandler = new RouteBodyHandler();
+    private volatile MethodResolveTable resolveTable;
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    MethodHandler(Class resourceClass, ContextProvider provider, boolean useReflection, ParamConverters paramConverters, int streamChunkSize, Serializers serializers, ResultAdapters resultAdapters) {
         this.resourceClass = resourceClass;
         this.contextProvider = provider;
+        this.useReflection = useReflection;
+        this.paramConverters = paramConverters;
+        this.streamChunkSize = streamChunkSize;
+        this.serializers = serializers;
+        this.resultAdapters = resultAdapters;
     }
 
     /**
      * add method to this handler
      * @param method method
+     * @param invoker method invoker, null to create from method
      * @param methodComparator comparator, nullable
-     * @return this
+     * @return cache of added method
      */
-    MethodHandler addHandleMethod(Method method, Comparator<MethodCache> methodComparator) {
-        handleMethods.add(new MethodCache(method));
+    synchronized MethodCache addHandleMethod(Method method, MethodInvoker invoker, Comparator<MethodCache> methodComparator) {
+        final MethodCache methodCache = new MethodCache(method, invoker != null ? invoker : MethodInvoker.create(method, useReflection), paramConverters);
+        handleMethods.add(methodCache);
         if (methodComparator != null) handleMethods.sort(methodComparator);
+        resolveTable = null;
+        return methodCache;
+    }
+
+    /**
+     * added methods, in match order
+     * @return method caches
+     */
+    List<MethodCache> getHandleMethods() {
+        return handleMethods;
+    }
+
+    /**
+     * body handler of route, to place before this handler
+     * @return body handler
+     */
+    RouteBodyHandler getBodyHandler() {
+        return bodyHandler;
+    }
+
+    /**
+     * configure body handler of route from added methods
+     * @param factory default body handler factory
+     * @return this
+     */
+    MethodHandler configureBody(Supplier<BodyHandler> factory) {
+        bodyHandler.configure(handleMethods, factory);
+        return this;
+    }
+
+    /**
+     * configure concurrency limiter of route from first limited method
+     * @param factory default limiter factory of routes without limited method, nullable
+     * @return this
+     */
+    MethodHandler configureLimiter(Supplier<ConcurrencyLimiter> factory) {
+        ConcurrencyLimit limit = null;
+        for (int i = 0; i < handleMethods.size() && limit == null; i++) limit = handleMethods.get(i).getConcurrencyLimit();
+        concurrencyLimiter = limit != null ? new ConcurrencyLimiter(limit) : factory != null ? factory.get() : null;
+        return this;
+    }
+
+    /**
+     * concurrency limiter of route
+     * @return limiter, null if not limited
+     */
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * compile added methods into overload resolve table, done by mapper once routes are registered
+     * @return this
+     */
+    synchronized MethodHandler compile() {
+        final Serializer serializer = contextProvider.provideContext(Serializer.class);
+        if (serializer != null) handleMethods.forEach(cache -> cache.resolveSerializers(serializer));
+        resolveTable = new MethodResolveTable(handleMethods);
         return this;
     }
 
     @Override
     public void handle(RoutingContext event) {
 
-        final Map<Class, Object> map = new HashMap<>();
-        map.put(RoutingContext.class, event);
-        map.put(HttpServerResponse.class, event.response());
-        map.put(HttpServerRequest.class, event.request());
+        // failure routing passes requests admitted already
+        final ConcurrencyLimiter limiter = event.failed() ? null : concurrencyLimiter;
+        if (limiter != null && !limiter.tryAcquire()) {
+            event.response().setStatusCode(HttpResponseStatus.SERVICE_UNAVAILABLE.code()).putHeader(RETRY_AFTER, limiter.getRetryAfter()).end();
+            return;
+        }
+        final long admitNanos = limiter == null ? 0 : System.nanoTime();
 
-        final Serializer serializer = contextProvider.provideContext(Serializer.class);
+        final Serializer defaultSerializer = contextProvider.provideContext(Serializer.class);
+        final Serializer serializer = serializers.forResponse(event, defaultSerializer);
         final RequestFilter requestFilter = contextProvider.provideContext(RequestFilter.class);
         if (requestFilter != null) requestFilter.filter(event.request());
 
+        MethodResolveTable table = resolveTable;
+        if (table == null) table = compiledTable();
+
         MethodCache hitCache = null;
         Object[] args = null;
-        boolean needSecondRound = false;
-
-        // first round match method to process.
-        for (MethodCache cache : handleMethods) {
-            if (needSecondRound && !cache.hasNonMapAnnotatedParameter()) break;
-            try {
-                args = cache.buildInvokeArgs(event, serializer, contextProvider, map, false);
+        BindResult invalidResult = null;
+        final BindContext bindContext = new BindContext(event, serializers.forRequest(event, defaultSerializer), contextProvider);
+        final MethodResolveTable.Plan plan = table.resolve(bindContext);
+        for (int i = 0; i < plan.methods.length; i++) {
+            final MethodCache cache = plan.methods[i];
+            final BindResult result = cache.bind(bindContext, plan.withDefaultValues[i]);
+            if (result.isBound()) {
+                args = result.getArguments();
                 hitCache = cache;
                 break;
-            } catch (Exception ignored) {
-                if (!needSecondRound) needSecondRound = cache.hasParameterWithDefaultValue();
-            }
-        }
-
-        // second round, enable parse parameter default value
-        if (hitCache == null && needSecondRound) {
-            for (MethodCache cache : handleMethods) {
-                if (cache.hasParameterWithDefaultValue() || !cache.hasNonMapAnnotatedParameter()) {
-                    try {
-                        args = cache.buildInvokeArgs(event, serializer, contextProvider, map, true);
-                        hitCache = cache;
-                        break;
-                    } catch (Exception ignored) {
-                        // ignored
-                    }
-                }
+            } else if (invalidResult == null && result.getStatus() == BindResult.Status.INVALID) {
+                invalidResult = result;
             }
         }
 
         if (hitCache != null) { // method hit
             final Object resourceInstance = contextProvider.provideContext(resourceClass);
             final MethodInterceptor methodInterceptor = contextProvider.provideContext(MethodInterceptor.class);
-            MethodCaller methodCaller = new MethodCaller(hitCache, resourceInstance, args, event, serializer);
+            MethodCaller methodCaller = new MethodCaller(hitCache, resourceInstance, args, event, hitCache.returnSerializer(serializer), streamChunkSize, resultAdapters);
+            if (limiter != null) new LimiterPermit(limiter, admitNanos, methodCaller).register(event);
             event.response().headersEndHandler(e -> addDefaultResponseHeader(event, serializer, contextProvider.provideContext(ResponseFilter.class)));
             if (methodInterceptor != null) methodInterceptor.intercept(methodCaller);
             if (!methodCaller.isEnded()) methodCaller.endWithCall();
+        } else if (invalidResult != null && !event.failed()) { // value present but malformed
+            if (limiter != null) limiter.cancel();
+            event.fail(HttpResponseStatus.BAD_REQUEST.code(), new ParameterBindException(invalidResult));
         } else {
+            if (limiter != null) limiter.cancel();
             event.next();
         }
     }
 
+    /**
+     * compile methods added after mapper was applied, once, even if event loops of several threads race on it
+     */
+    private synchronized MethodResolveTable compiledTable() {
+        final MethodResolveTable table = resolveTable;
+        return table != null ? table : compile().resolveTable;
+    }
+
     private void addDefaultResponseHeader(RoutingContext context, Serializer serializer, ResponseFilter responseFilter) {
-        String acceptableContentType = context.getAcceptableContentType();
-        if (acceptableContentType == null) acceptableContentType = serializer.mediaType();
+        // produced type without registered serializer keeps its label, as before serializers are negotiated
+        String contentType = context.getAcceptableContentType();
+        if (contentType == null || serializers.find(contentType) != null) contentType = serializer.mediaType();
         HttpServerResponse response = context.response();
         MultiMap headers = response.headers();
         if (!headers.contains(CONTENT_TYPE) && !"0".equals(headers.get(CONTENT_LENGTH))) {
-            headers.add(CONTENT_TYPE, acceptableContentType + ";charset=" + serializer.mediaEncode());
+            final String mediaEncode = serializer.mediaEncode();
+            headers.add(CONTENT_TYPE, mediaEncode == null ? contentType : contentType + ";charset=" + mediaEncode);
         }
         if (responseFilter != null) {
             responseFilter.filter(context.request(), response);
         }
     }
 
-}
+    /**
+     * Admitted request of a limited route, released once when its body is written or its response is closed.
+     * Neither is a response end handler, which resource methods and interceptors may replace.
+     */
+    private static final class LimiterPermit {
+
+        private final ConcurrencyLimiter limiter;
+        private final long admitNanos;
+        private final MethodCaller methodCaller;
+        private boolean released = false;
+
+        LimiterPermit(ConcurrencyLimiter limiter, long admitNanos, MethodCaller methodCaller) {
+            this.limiter = limiter;
+            this.admitNanos = admitNanos;
+            this.methodCaller = methodCaller;
+        }
+
+        void register(RoutingContext event) {
+            event.addBodyEndHandler(v -> end(event.response().getStatusCode()));
+            ResponseCloseHandlers.add(event, v -> close());
+        }
+
+        /**
+         * latency of responses skipping the work of method is no sample of route
+         */
+        private void end(int status) {
+            if (released) return;
+            released = true;
+            if (methodCaller.isCacheHit() || status == HttpResponseStatus.NOT_MODIFIED.code() || status >= 400 && status < 500) {
+                limiter.cancel();
+            } else {
+                limiter.release(admitNanos, status == HttpResponseStatus.SERVICE_UNAVAILABLE.code());
+            }
+        }
+
+        private void close() {
+            if (released) return;
+            released = true;
+            limiter.cancel();
+        }
 
+    }
+
+}
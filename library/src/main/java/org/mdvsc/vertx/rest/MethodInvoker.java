@@ -0,0 +1,113 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a resource method, created once when the method is cached.
+ * Exceptions thrown by the method are rethrown as is, never wrapped.
+ */
+abstract class MethodInvoker {
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * create invoker
+     * @param method resource method
+     * @param useReflection use core reflection instead of method handle
+     * @return invoker
+     */
+    static MethodInvoker create(Method method, boolean useReflection) {
+        if (!useReflection) {
+            try {
+                return new HandleInvoker(method);
+            } catch (IllegalAccessException ignored) {
+                // not accessible by lookup, reflection decides at call time
+            }
+        }
+        return new ReflectionInvoker(method);
+    }
+
+    /**
+     * create invoker calling generated registrar
+     * @param registrar generated registrar of resource class
+     * @param methodIndex method index in registrar
+     * @return invoker
+     */
+    static MethodInvoker create(ResourceRegistrar registrar, int methodIndex) {
+        return new RegistrarInvoker(registrar, methodIndex);
+    }
+
+    /**
+     * invoke method
+     * @param target method owner, ignored for static method
+     * @param arguments method arguments
+     * @return method return value, null if void
+     * @throws Throwable exception thrown by method
+     */
+    abstract Object invoke(Object target, Object[] arguments) throws Throwable;
+
+    /**
+     * method handle spread to (Object, Object[])Object
+     */
+    private static final class HandleInvoker extends MethodInvoker {
+
+        private final MethodHandle handle;
+
+        HandleInvoker(Method method) throws IllegalAccessException {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            this.handle = handle
+                    .asType(handle.type().generic())
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(INVOKE_TYPE);
+        }
+
+        @Override
+        Object invoke(Object target, Object[] arguments) throws Throwable {
+            return (Object) handle.invokeExact(target, arguments);
+        }
+
+    }
+
+    private static final class RegistrarInvoker extends MethodInvoker {
+
+        private final ResourceRegistrar registrar;
+        private final int methodIndex;
+
+        RegistrarInvoker(ResourceRegistrar registrar, int methodIndex) {
+            this.registrar = registrar;
+            this.methodIndex = methodIndex;
+        }
+
+        @Override
+        Object invoke(Object target, Object[] arguments) throws Throwable {
+            return registrar.invoke(methodIndex, target, arguments);
+        }
+
+    }
+
+    private static final class ReflectionInvoker extends MethodInvoker {
+
+        private final Method method;
+
+        ReflectionInvoker(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        Object invoke(Object target, Object[] arguments) throws Throwable {
+            try {
+                return method.invoke(target, arguments);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
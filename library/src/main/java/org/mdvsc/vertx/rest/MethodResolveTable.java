@@ -0,0 +1,163 @@
+package org.mdvsc.vertx.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Overload decision table of a route, compiled from sorted method candidates.
+ * Each distinct named requirement gets one bit, a request is reduced to the mask of present names,
+ * and the mask selects the ordered binding attempts the old try-and-catch probing would have made.
+ * Routes of more keys than fit a full table build plans of masks as requests bring them, up to a bound.
+ */
+final class MethodResolveTable {
+
+    private static final int MAX_KEY_SIZE = Long.SIZE;
+    private static final int MAX_TABLE_KEY_SIZE = 8;
+    private static final int MAX_LAZY_PLANS = 1 << 10;
+
+    private final MethodCache[] candidates;
+    private final ParameterSource[] keySources;
+    private final String[] keyNames;
+    private final long[] requiredMasks;
+    private final long[] requiredMasksWithDefault;
+    private final Plan[] table;
+    private final Map<Long, Plan> lazyPlans;
+
+    MethodResolveTable(List<MethodCache> sortedCandidates) {
+        final int size = sortedCandidates.size();
+        final List<MethodCache.Requirement> keys = new ArrayList<>();
+        candidates = sortedCandidates.toArray(new MethodCache[size]);
+        requiredMasks = new long[size];
+        requiredMasksWithDefault = new long[size];
+        for (int i = 0; i < size; i++) {
+            long mask = 0, maskWithDefault = 0;
+            for (MethodCache.Requirement requirement : candidates[i].getRequirements()) {
+                int index = indexOf(keys, requirement);
+                if (index < 0 && keys.size() < MAX_KEY_SIZE) {
+                    index = keys.size();
+                    keys.add(requirement);
+                }
+                if (index < 0) continue; // not tracked, binding will decide
+                mask |= 1L << index;
+                if (!requirement.hasDefaultValue) maskWithDefault |= 1L << index;
+            }
+            requiredMasks[i] = mask;
+            requiredMasksWithDefault[i] = maskWithDefault;
+        }
+        final int keySize = keys.size();
+        keySources = new ParameterSource[keySize];
+        keyNames = new String[keySize];
+        for (int i = 0; i < keySize; i++) {
+            keySources[i] = keys.get(i).source;
+            keyNames[i] = keys.get(i).name;
+        }
+        if (keySize <= MAX_TABLE_KEY_SIZE) {
+            table = new Plan[1 << keySize];
+            for (int mask = 0; mask < table.length; mask++) {
+                table[mask] = buildPlan(mask);
+            }
+            lazyPlans = null;
+        } else {
+            table = null;
+            lazyPlans = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * look up binding attempts for request
+     * @param context bind context of request
+     * @return plan, never null
+     */
+    Plan resolve(BindContext context) {
+        long mask = 0;
+        for (int i = 0; i < keySources.length; i++) {
+            if (keySources[i].isPresent(context, keyNames[i])) mask |= 1L << i;
+        }
+        return plan(mask);
+    }
+
+    /**
+     * plan of a presence mask, built once
+     * @param mask presence mask
+     * @return plan, never null
+     */
+    Plan plan(long mask) {
+        if (table != null) return table[(int) mask];
+        Plan plan = lazyPlans.get(mask);
+        if (plan == null) {
+            plan = buildPlan(mask);
+            // masks are bounded by keys of route, not by requests, still a route of many optional keys is capped
+            if (lazyPlans.size() < MAX_LAZY_PLANS) {
+                final Plan raced = lazyPlans.putIfAbsent(mask, plan);
+                if (raced != null) plan = raced;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Replay candidate order against a presence mask.
+     * A candidate whose requirements are present may still fail on conversion, so later candidates are kept
+     * behind it in the same order the probing loop visited them.
+     */
+    private Plan buildPlan(long presentMask) {
+        final List<MethodCache> methods = new ArrayList<>();
+        final List<Boolean> defaults = new ArrayList<>();
+        boolean needSecondRound = false;
+
+        // first round, all annotated parameters must present
+        for (int i = 0; i < candidates.length; i++) {
+            final MethodCache cache = candidates[i];
+            if (needSecondRound && !cache.hasNonMapAnnotatedParameter()) break;
+            if (cache.isBindable() && (requiredMasks[i] & ~presentMask) == 0) {
+                methods.add(cache);
+                defaults.add(false);
+            }
+            if (!needSecondRound) needSecondRound = cache.hasParameterWithDefaultValue();
+        }
+
+        // second round, parameter with default value may absent
+        if (needSecondRound) {
+            for (int i = 0; i < candidates.length; i++) {
+                final MethodCache cache = candidates[i];
+                if ((cache.hasParameterWithDefaultValue() || !cache.hasNonMapAnnotatedParameter())
+                        && cache.isBindable()
+                        && (requiredMasksWithDefault[i] & ~presentMask) == 0) {
+                    methods.add(cache);
+                    defaults.add(true);
+                }
+            }
+        }
+
+        final int size = methods.size();
+        final boolean[] withDefaultValues = new boolean[size];
+        for (int i = 0; i < size; i++) withDefaultValues[i] = defaults.get(i);
+        return new Plan(methods.toArray(new MethodCache[size]), withDefaultValues);
+    }
+
+    private static int indexOf(List<MethodCache.Requirement> keys, MethodCache.Requirement requirement) {
+        for (int i = 0; i < keys.size(); i++) {
+            MethodCache.Requirement key = keys.get(i);
+            if (key.source == requirement.source && key.name.equals(requirement.name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * ordered binding attempts for one presence mask
+     */
+    static final class Plan {
+
+        final MethodCache[] methods;
+        final boolean[] withDefaultValues;
+
+        private Plan(MethodCache[] methods, boolean[] withDefaultValues) {
+            this.methods = methods;
+            this.withDefaultValues = withDefaultValues;
+        }
+
+    }
+
+}
@@ -0,0 +1,19 @@
+package org.mdvsc.vertx.rest;
+
+/**
+ * Converts textual query, header, field, path or body value to a parameter type,
+ * registered by {@link RestMapper#registerParamConverter(Class, ParamConverter)}.
+ * Converters are resolved once per parameter when routes are applied.
+ */
+@FunctionalInterface
+public interface ParamConverter<T> {
+
+    /**
+     * convert value
+     * @param value trimmed value, not null
+     * @return converted value
+     * @throws RuntimeException if value is malformed, request is rejected as bad request
+     */
+    T fromString(String value);
+
+}
@@ -0,0 +1,126 @@
+package org.mdvsc.vertx.rest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.*;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Registered and built-in {@link ParamConverter}s, looked up by exact parameter type.
+ * Built-in converters cover enums, UUID, java.time types and types with a public static
+ * valueOf(String) or fromString(String) method or a public String constructor.
+ * Deprecated factories are skipped, and dates and calendars are left to the serializer,
+ * which also accepts epoch millis and ISO dates that their legacy factories reject.
+ */
+class ParamConverters {
+
+    private static final Map<Class<?>, ParamConverter<?>> BUILT_IN = new HashMap<>();
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, String.class);
+
+    static {
+        BUILT_IN.put(UUID.class, UUID::fromString);
+        BUILT_IN.put(Instant.class, Instant::parse);
+        BUILT_IN.put(Duration.class, Duration::parse);
+        BUILT_IN.put(Period.class, Period::parse);
+        BUILT_IN.put(LocalDate.class, LocalDate::parse);
+        BUILT_IN.put(LocalTime.class, LocalTime::parse);
+        BUILT_IN.put(LocalDateTime.class, LocalDateTime::parse);
+        BUILT_IN.put(OffsetTime.class, OffsetTime::parse);
+        BUILT_IN.put(OffsetDateTime.class, OffsetDateTime::parse);
+        BUILT_IN.put(ZonedDateTime.class, ZonedDateTime::parse);
+        BUILT_IN.put(Year.class, Year::parse);
+        BUILT_IN.put(YearMonth.class, YearMonth::parse);
+        BUILT_IN.put(MonthDay.class, MonthDay::parse);
+        BUILT_IN.put(ZoneId.class, ZoneId::of);
+        BUILT_IN.put(ZoneOffset.class, ZoneOffset::of);
+    }
+
+    private final Map<Class<?>, ParamConverter<?>> registered = new HashMap<>();
+    private final Map<Class<?>, ParamConverter<?>> resolved = new HashMap<>();
+
+    <T> void register(Class<T> type, ParamConverter<? extends T> converter) {
+        if (converter == null) throw new NullPointerException("register null converter.");
+        registered.put(type, converter);
+        resolved.clear();
+    }
+
+    /**
+     * registered converter of type
+     * @param type parameter type
+     * @return converter or null
+     */
+    ParamConverter<?> findRegistered(Class<?> type) {
+        return registered.get(type);
+    }
+
+    /**
+     * built-in converter of type, resolved once per type
+     * @param type parameter type
+     * @return converter or null if value should be deserialized by serializer
+     */
+    ParamConverter<?> findBuiltIn(Class<?> type) {
+        if (resolved.containsKey(type)) return resolved.get(type);
+        ParamConverter<?> converter = BUILT_IN.get(type);
+        if (converter == null) converter = type.isEnum() ? enumConverter(type) : factoryConverter(type);
+        resolved.put(type, converter);
+        return converter;
+    }
+
+    private static ParamConverter<?> enumConverter(Class<?> type) {
+        final Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) constants.put(((Enum) constant).name(), constant);
+        return value -> {
+            Object constant = constants.get(value);
+            if (constant == null) throw new IllegalArgumentException("no enum constant " + type.getName() + "." + value);
+            return constant;
+        };
+    }
+
+    private static ParamConverter<?> factoryConverter(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isInterface() || type == Object.class) return null;
+        if (Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)) return null;
+        MethodHandle handle = null;
+        try {
+            handle = factoryMethod(type, "valueOf");
+            if (handle == null) handle = factoryMethod(type, "fromString");
+            if (handle == null && !Modifier.isAbstract(type.getModifiers())) {
+                Constructor<?> constructor = type.getConstructor(String.class);
+                if (constructor.isAnnotationPresent(Deprecated.class)) return null;
+                handle = MethodHandles.publicLookup().unreflectConstructor(constructor);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException ignored) {
+            // no factory, deserialized by serializer
+        }
+        if (handle == null) return null;
+        final MethodHandle factory = handle.asType(FACTORY_TYPE);
+        return value -> {
+            try {
+                return (Object) factory.invokeExact(value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(e);
+            }
+        };
+    }
+
+    private static MethodHandle factoryMethod(Class<?> type, String name) throws IllegalAccessException {
+        try {
+            Method method = type.getMethod(name, String.class);
+            if (!Modifier.isStatic(method.getModifiers()) || !type.isAssignableFrom(method.getReturnType())
+                    || method.isAnnotationPresent(Deprecated.class)) return null;
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.mdvsc.vertx.rest;
+
+/**
+ * Request failure when a present value can not be bound to any method, reported as bad request.
+ * Carries no stack trace, the bind result tells what failed.
+ */
+public class ParameterBindException extends RuntimeException {
+
+    private final BindResult bindResult;
+
+    public ParameterBindException(BindResult bindResult) {
+        super(bindResult.getReason(), null, false, false);
+        this.bindResult = bindResult;
+    }
+
+    public BindResult getBindResult() {
+        return bindResult;
+    }
+
+}
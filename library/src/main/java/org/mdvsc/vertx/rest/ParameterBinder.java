@@ -0,0 +1,667 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.FileUpload;
+import io.vertx.ext.web.RoutingContext;
+import org.mdvsc.vertx.collection.GenericMultiMap;
+import org.mdvsc.vertx.utils.CollectionUtils;
+import org.mdvsc.vertx.utils.Splitter;
+import org.mdvsc.vertx.utils.StringUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Parameter;
+import java.util.*;
+
+/**
+ * Binds one method parameter from request.
+ * Annotations, names, default values, separators and converters are resolved when method is cached,
+ * so binding a request is one call per parameter.
+ */
+abstract class ParameterBinder {
+
+    final String name;
+    final Class<?> type;
+
+    ParameterBinder(String name, Class<?> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * create binder from the first binding annotation of parameter
+     * @param parameter method parameter
+     * @param converters param converters, nullable
+     * @return binder, never null
+     */
+    static ParameterBinder create(Parameter parameter, ParamConverters converters) {
+        final Class<?> type = parameter.getType();
+        final Annotation[] annotations = parameter.getDeclaredAnnotations();
+        final Separator separator = CollectionUtils.firstElement(annotations, Separator.class);
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Query) {
+                Query a = (Query) annotation;
+                return new MultiValueBinder(ParameterSource.QUERY, a.value(), type, a.defaultValue(), separator, converters);
+            } else if (annotation instanceof Header) {
+                Header a = (Header) annotation;
+                return new MultiValueBinder(ParameterSource.HEADER, a.value(), type, a.defaultValue(), separator, converters);
+            } else if (annotation instanceof Field) {
+                Field a = (Field) annotation;
+                return new MultiValueBinder(ParameterSource.FIELD, a.value(), type, a.defaultValue(), separator, converters);
+            } else if (annotation instanceof Path) {
+                Path a = (Path) annotation;
+                return new PathBinder(a.value(), type, a.defaultValue(), separator, converters);
+            } else if (annotation instanceof File) {
+                return new FileBinder(((File) annotation).value(), type);
+            } else if (annotation instanceof FileSet) {
+                return new FileSetBinder(parameter.getName(), type);
+            } else if (annotation instanceof FileMap) {
+                return new FileMapBinder(parameter.getName(), type);
+            } else if (annotation instanceof QueryMap) {
+                return new MultiMapBinder(ParameterSource.QUERY, parameter.getName(), type);
+            } else if (annotation instanceof HeaderMap) {
+                return new MultiMapBinder(ParameterSource.HEADER, parameter.getName(), type);
+            } else if (annotation instanceof FieldMap) {
+                return new MultiMapBinder(ParameterSource.FIELD, parameter.getName(), type);
+            } else if (annotation instanceof PathMap) {
+                return new PathMapBinder(parameter.getName(), type);
+            } else if (annotation instanceof Body) {
+                if (StreamBodyBinder.supports(type)) return new StreamBodyBinder(parameter.getName(), type);
+                return new BodyBinder(parameter.getName(), type, ((Body) annotation).defaultValue(), separator, converters);
+            } else if (annotation instanceof Context) {
+                return new ContextBinder(parameter.getName(), type);
+            }
+        }
+        return new UnboundBinder(parameter.getName(), type);
+    }
+
+    /**
+     * bind parameter value
+     * @param context bind context
+     * @param withDefaultValue use default value when value absent
+     * @return value, null if absent, or {@link StringUtils#INVALID_VALUE} if malformed
+     */
+    abstract Object bind(BindContext context, boolean withDefaultValue);
+
+    /**
+     * counted as annotated parameter when sorting methods
+     * @return true if yes
+     */
+    boolean isAnnotated() {
+        return true;
+    }
+
+    /**
+     * binds a map of values
+     * @return true if yes
+     */
+    boolean isMap() {
+        return false;
+    }
+
+    /**
+     * binds uploaded files
+     * @return true if yes
+     */
+    boolean isFile() {
+        return false;
+    }
+
+    /**
+     * has default value
+     * @return true if yes
+     */
+    boolean hasDefaultValue() {
+        return false;
+    }
+
+    /**
+     * reads aggregated request body, form attributes or uploads
+     * @return true if yes
+     */
+    boolean readsBody() {
+        return false;
+    }
+
+    /**
+     * reads request body as a stream, body must not be aggregated before method is called
+     * @return true if yes
+     */
+    boolean isStreamingBody() {
+        return false;
+    }
+
+    /**
+     * null is an accepted bound value
+     * @return true if yes
+     */
+    boolean isOptional() {
+        return false;
+    }
+
+    /**
+     * can ever be bound from request
+     * @return true if yes
+     */
+    boolean isBindable() {
+        return true;
+    }
+
+    /**
+     * named request value which must be present to bind this parameter
+     * @return requirement or null
+     */
+    MethodCache.Requirement getRequirement() {
+        return null;
+    }
+
+    /**
+     * resolve serializer specialized for parameter type ahead of requests
+     * @param serializer serializer
+     */
+    void resolveSerializer(Serializer serializer) {
+    }
+
+    /**
+     * binder of textual values, with default value and separator resolved
+     */
+    private static abstract class ValueBinder extends ParameterBinder {
+
+        final String defaultValue;
+        final boolean hasSeparator;
+        final Splitter splitter;
+        final Class<?> element;
+        final boolean isArray;
+        final boolean isList;
+        final ValueConverter converter;
+        final ValueConverter elementConverter;
+        final ValueConverter leafConverter;
+        final boolean isPrimitiveArray;
+
+        ValueBinder(String name, Class<?> type, String defaultValue, Separator separator, ParamConverters converters) {
+            super(name, type);
+            this.defaultValue = Constants.processNullValue(defaultValue);
+            this.hasSeparator = separator != null;
+            this.splitter = separator == null ? new Splitter(null, null, null) : new Splitter(separator.value(), separator.start(), separator.end());
+            this.isArray = type.isArray();
+            this.isList = List.class.isAssignableFrom(type);
+            this.element = isArray ? type.getComponentType() : separator != null ? separator.type() : String.class;
+            this.converter = ValueConverter.forType(type, converters);
+            this.elementConverter = ValueConverter.forType(element, converters);
+            Class<?> leaf = element;
+            while (leaf.isArray()) leaf = leaf.getComponentType();
+            this.leafConverter = ValueConverter.forType(leaf, converters);
+            this.isPrimitiveArray = PrimitiveArrayBuilder.supports(type);
+        }
+
+        @Override
+        boolean hasDefaultValue() {
+            return defaultValue != null;
+        }
+
+        /**
+         * translate one value to parameter type
+         */
+        Object translate(String content, boolean withDefaultValue, Serializer serializer) {
+            if (content == null) if (withDefaultValue && defaultValue != null) content = defaultValue; else return null;
+            final int from = splitter.betweenStart(content, 0, content.length());
+            final int to = splitter.betweenEnd(content, from, content.length());
+            if (isArray) {
+                if (splitter.hasSeparator()) return translateArray(content, from, to, type, serializer);
+                if (isPrimitiveArray) {
+                    PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.create(type, splitter, 1);
+                    return builder.add(content, from, to) ? builder.build() : StringUtils.INVALID_VALUE;
+                }
+                Object value = elementConverter.convert(content, from, to, serializer);
+                if (value == StringUtils.INVALID_VALUE) return value;
+                Object array = Array.newInstance(element, 1);
+                Array.set(array, 0, value);
+                return array;
+            } else if (isList) {
+                List<Object> list = new ArrayList<>();
+                return addItems(content, from, to, list, serializer) ? list : StringUtils.INVALID_VALUE;
+            }
+            return converter.convert(content, from, to, serializer);
+        }
+
+        /**
+         * split range between start and end into element values
+         * @return false if some item is malformed
+         */
+        boolean addItems(String content, int from, int to, List<Object> list, Serializer serializer) {
+            if (!splitter.hasSeparator()) {
+                Object value = elementConverter.convert(content, from, to, serializer);
+                if (value == StringUtils.INVALID_VALUE) return false;
+                list.add(value);
+                return true;
+            }
+            return splitter.split(content, from, to, (text, start, end) -> {
+                final int itemStart = splitter.betweenStart(text, start, end);
+                Object value = elementConverter.convert(text, itemStart, splitter.betweenEnd(text, itemStart, end), serializer);
+                if (value == StringUtils.INVALID_VALUE) return false;
+                list.add(value);
+                return true;
+            });
+        }
+
+        /**
+         * split range between start and end into array items, nested array items are split again
+         */
+        Object translateArray(CharSequence content, int from, int to, Class<?> arrayType, Serializer serializer) {
+            if (PrimitiveArrayBuilder.supports(arrayType)) {
+                PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.create(arrayType, splitter, splitter.count(content, from, to));
+                return splitter.splitItems(content, from, to, builder) ? builder.build() : StringUtils.INVALID_VALUE;
+            }
+            final Class<?> component = arrayType.getComponentType();
+            final List<Object> items = new ArrayList<>();
+            final boolean completed = splitter.splitItems(content, from, to, (text, start, end) -> {
+                final int itemStart = splitter.betweenStart(text, start, end);
+                final int itemEnd = splitter.betweenEnd(text, itemStart, end);
+                Object item = component.isArray()
+                        ? translateArray(text, itemStart, itemEnd, component, serializer)
+                        : leafConverter.convert(text, itemStart, itemEnd, serializer);
+                items.add(item);
+                return item != StringUtils.INVALID_VALUE;
+            });
+            return completed ? CollectionUtils.toTypedArray(items, component) : StringUtils.INVALID_VALUE;
+        }
+
+    }
+
+    /**
+     * query, header or form field binder, each may carry several values
+     */
+    private static final class MultiValueBinder extends ValueBinder {
+
+        final ParameterSource source;
+        final MethodCache.Requirement requirement;
+
+        MultiValueBinder(ParameterSource source, String name, Class<?> type, String defaultValue, Separator separator, ParamConverters converters) {
+            super(name, type, defaultValue, separator, converters);
+            this.source = source;
+            this.requirement = new MethodCache.Requirement(source, name, defaultValue);
+        }
+
+        @Override
+        boolean readsBody() {
+            return source == ParameterSource.FIELD;
+        }
+
+        @Override
+        MethodCache.Requirement getRequirement() {
+            return requirement;
+        }
+
+        private Object bindPrimitiveArray(List<String> params, String defaultValue) {
+            final boolean useDefault = params.isEmpty();
+            PrimitiveArrayBuilder builder = appendPrimitives(useDefault ? Collections.singletonList(defaultValue) : params);
+            if (builder == null) return StringUtils.INVALID_VALUE;
+            if (builder.size == 0 && hasSeparator && !useDefault) {
+                if (defaultValue == null) return null;
+                builder = appendPrimitives(Collections.singletonList(defaultValue));
+                if (builder == null) return StringUtils.INVALID_VALUE;
+            }
+            return builder.build();
+        }
+
+        /**
+         * @return builder with all values appended, or null if some value is malformed
+         */
+        private PrimitiveArrayBuilder appendPrimitives(List<String> params) {
+            int capacity = params.size();
+            if (hasSeparator) {
+                capacity = 0;
+                for (String param : params) capacity += splitter.count(param, 0, param.length());
+            }
+            final PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.create(type, splitter, capacity);
+            for (String param : params) {
+                if (hasSeparator) {
+                    final int from = splitter.betweenStart(param, 0, param.length());
+                    if (!splitter.split(param, from, splitter.betweenEnd(param, from, param.length()), builder)) return null;
+                } else if (!builder.add(param, 0, param.length())) return null;
+            }
+            return builder;
+        }
+
+        private boolean addBetweenItems(String content, List<Object> list, Serializer serializer) {
+            final int from = splitter.betweenStart(content, 0, content.length());
+            return addItems(content, from, splitter.betweenEnd(content, from, content.length()), list, serializer);
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            final List<String> params = source.values(context.routingContext).getAll(name);
+            final String defaultValue = withDefaultValue ? this.defaultValue : null;
+            final Serializer serializer = context.serializer;
+            if (params.isEmpty() && defaultValue == null) return null;
+            else if (!isArray && !isList) return translate(params.isEmpty() ? null : params.get(0), withDefaultValue, serializer);
+            else if (isPrimitiveArray) return bindPrimitiveArray(params, defaultValue);
+            if (hasSeparator) {
+                List<Object> list = new ArrayList<>();
+                for (String param : params) {
+                    if (!addBetweenItems(param, list, serializer)) return StringUtils.INVALID_VALUE;
+                }
+                if (list.isEmpty()) {
+                    if (defaultValue == null) return null;
+                    if (!addBetweenItems(defaultValue, list, serializer)) return StringUtils.INVALID_VALUE;
+                }
+                return isArray ? CollectionUtils.toTypedArray(list, element) : list;
+            } else {
+                if (!isArray) return params.isEmpty() ? Collections.singleton(defaultValue) : params;
+                List<Object> list = new ArrayList<>(params.size());
+                for (String param : params) {
+                    Object value = elementConverter.convert(param, serializer);
+                    if (value == StringUtils.INVALID_VALUE) return value;
+                    if (value != null) list.add(value);
+                }
+                if (list.isEmpty()) {
+                    Object value = defaultValue == null ? null : elementConverter.convert(defaultValue, serializer);
+                    if (value == null || value == StringUtils.INVALID_VALUE) return value;
+                    list.add(value);
+                }
+                return CollectionUtils.toTypedArray(list, element);
+            }
+        }
+
+    }
+
+    private static final class PathBinder extends ValueBinder {
+
+        final MethodCache.Requirement requirement;
+
+        PathBinder(String name, Class<?> type, String defaultValue, Separator separator, ParamConverters converters) {
+            super(name, type, defaultValue, separator, converters);
+            this.requirement = new MethodCache.Requirement(ParameterSource.PATH, name, defaultValue);
+        }
+
+        @Override
+        MethodCache.Requirement getRequirement() {
+            return requirement;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            return translate(context.routingContext.pathParam(name), withDefaultValue, context.serializer);
+        }
+
+    }
+
+    private static final class BodyBinder extends ValueBinder {
+
+        final boolean isSerialized;
+        final TypedSerializers serializers;
+
+        BodyBinder(String name, Class<?> type, String defaultValue, Separator separator, ParamConverters converters) {
+            super(name, type, defaultValue, separator, converters);
+            this.isSerialized = !hasSeparator && !isArray && !isList && ValueConverter.isSerialized(type, converters);
+            this.serializers = isSerialized ? new TypedSerializers(type) : null;
+        }
+
+        @Override
+        void resolveSerializer(Serializer serializer) {
+            if (isSerialized) serializers.get(serializer);
+        }
+
+        @Override
+        boolean readsBody() {
+            return true;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            final RoutingContext routingContext = context.routingContext;
+            if (type == Buffer.class) return routingContext.getBody();
+            if (type == FileUpload.class) {
+                Iterator<FileUpload> iterator = routingContext.fileUploads().iterator();
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+            if (type == JsonObject.class || type == JsonArray.class) {
+                Buffer body = routingContext.getBody();
+                if (body == null || body.length() == 0) return null;
+                try {
+                    return type == JsonObject.class ? routingContext.getBodyAsJson() : routingContext.getBodyAsJsonArray();
+                } catch (RuntimeException e) {
+                    return StringUtils.INVALID_VALUE;
+                }
+            }
+            if (isSerialized) {
+                // decode body bytes directly, without a String copy
+                final Buffer body = routingContext.getBody();
+                if (body == null || context.serializer == null) return translate(null, withDefaultValue, context.serializer);
+                try {
+                    return serializers.get(context.serializer).deserialize(body, type);
+                } catch (RuntimeException e) {
+                    return StringUtils.INVALID_VALUE;
+                }
+            }
+            return translate(routingContext.getBodyAsString(), withDefaultValue, context.serializer);
+        }
+
+    }
+
+    /**
+     * body as {@link ReadStream} or rxjava Flowable of buffers, request is paused until method reads it
+     */
+    private static final class StreamBodyBinder extends ParameterBinder {
+
+        private static final String FLOWABLE_CLASS = "io.reactivex.Flowable";
+
+        final boolean isFlowable;
+
+        StreamBodyBinder(String name, Class<?> type) {
+            super(name, type);
+            this.isFlowable = FLOWABLE_CLASS.equals(type.getName());
+        }
+
+        static boolean supports(Class<?> type) {
+            return type == ReadStream.class || FLOWABLE_CLASS.equals(type.getName());
+        }
+
+        @Override
+        boolean isStreamingBody() {
+            return true;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            final RoutingContext routingContext = context.routingContext;
+            final HttpServerRequest request = routingContext.request();
+            // nothing reads body until method does, keep chunks from being dropped meanwhile
+            request.pause();
+            return isFlowable ? ReadStreamPublisher.toFlowable(request, routingContext.vertx().getOrCreateContext()) : request;
+        }
+
+    }
+
+    private static final class FileBinder extends ParameterBinder {
+
+        final boolean isArray;
+        final boolean isList;
+        final MethodCache.Requirement requirement;
+
+        FileBinder(String name, Class<?> type) {
+            super(name, type);
+            this.isArray = type.isArray();
+            this.isList = List.class.isAssignableFrom(type);
+            this.requirement = isArray || isList ? null : new MethodCache.Requirement(ParameterSource.FILE, name, null);
+        }
+
+        @Override
+        boolean readsBody() {
+            return true;
+        }
+
+        @Override
+        boolean isFile() {
+            return true;
+        }
+
+        @Override
+        MethodCache.Requirement getRequirement() {
+            return requirement;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            final List<FileUpload> files = context.fileUploads(name);
+            if (!isArray && !isList) return files.isEmpty() ? null : files.get(0);
+            return isArray ? CollectionUtils.toTypedArray(files, type.getComponentType()) : new ArrayList<>(files);
+        }
+
+    }
+
+    private static final class FileSetBinder extends ParameterBinder {
+
+        FileSetBinder(String name, Class<?> type) {
+            super(name, type);
+        }
+
+        @Override
+        boolean readsBody() {
+            return true;
+        }
+
+        @Override
+        boolean isAnnotated() {
+            return false;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            return context.routingContext.fileUploads();
+        }
+
+    }
+
+    private static final class FileMapBinder extends ParameterBinder {
+
+        FileMapBinder(String name, Class<?> type) {
+            super(name, type);
+        }
+
+        @Override
+        boolean readsBody() {
+            return true;
+        }
+
+        @Override
+        boolean isMap() {
+            return true;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            final Map<String, List<FileUpload>> index = context.fileUploadIndex();
+            final Map<String, FileUpload> map = new HashMap<>(index.size() * 4 / 3 + 1);
+            for (Map.Entry<String, List<FileUpload>> entry : index.entrySet()) {
+                List<FileUpload> files = entry.getValue();
+                // last upload wins, as a map built over all uploads
+                map.put(entry.getKey(), files.get(files.size() - 1));
+            }
+            return map;
+        }
+
+    }
+
+    private static final class MultiMapBinder extends ParameterBinder {
+
+        final ParameterSource source;
+        final boolean isMultiMap;
+
+        MultiMapBinder(ParameterSource source, String name, Class<?> type) {
+            super(name, type);
+            this.source = source;
+            this.isMultiMap = type == MultiMap.class;
+        }
+
+        @Override
+        boolean readsBody() {
+            return source == ParameterSource.FIELD;
+        }
+
+        @Override
+        boolean isMap() {
+            return true;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            MultiMap values = source.values(context.routingContext);
+            return isMultiMap ? new GenericMultiMap(values) : CollectionUtils.toMap(values);
+        }
+
+    }
+
+    private static final class PathMapBinder extends ParameterBinder {
+
+        PathMapBinder(String name, Class<?> type) {
+            super(name, type);
+        }
+
+        @Override
+        boolean isMap() {
+            return true;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            return context.routingContext.pathParams();
+        }
+
+    }
+
+    private static final class ContextBinder extends ParameterBinder {
+
+        ContextBinder(String name, Class<?> type) {
+            super(name, type);
+        }
+
+        @Override
+        boolean isAnnotated() {
+            return false;
+        }
+
+        @Override
+        boolean isOptional() {
+            return true;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            return context.provideContext(type);
+        }
+
+    }
+
+    /**
+     * parameter without binding annotation, method can not be called from request
+     */
+    private static final class UnboundBinder extends ParameterBinder {
+
+        UnboundBinder(String name, Class<?> type) {
+            super(name, type);
+        }
+
+        @Override
+        boolean isAnnotated() {
+            return false;
+        }
+
+        @Override
+        boolean isBindable() {
+            return false;
+        }
+
+        @Override
+        Object bind(BindContext context, boolean withDefaultValue) {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.MultiMap;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * where a named parameter value comes from
+ */
+enum ParameterSource {
+
+    QUERY {
+        @Override
+        boolean isPresent(BindContext context, String name) {
+            return context.routingContext.request().params().contains(name);
+        }
+
+        @Override
+        MultiMap values(RoutingContext context) {
+            return context.request().params();
+        }
+    },
+
+    HEADER {
+        @Override
+        boolean isPresent(BindContext context, String name) {
+            return context.routingContext.request().headers().contains(name);
+        }
+
+        @Override
+        MultiMap values(RoutingContext context) {
+            return context.request().headers();
+        }
+    },
+
+    FIELD {
+        @Override
+        boolean isPresent(BindContext context, String name) {
+            return context.routingContext.request().formAttributes().contains(name);
+        }
+
+        @Override
+        MultiMap values(RoutingContext context) {
+            return context.request().formAttributes();
+        }
+    },
+
+    PATH {
+        @Override
+        boolean isPresent(BindContext context, String name) {
+            return context.routingContext.pathParam(name) != null;
+        }
+    },
+
+    FILE {
+        @Override
+        boolean isPresent(BindContext context, String name) {
+            return !context.fileUploads(name).isEmpty();
+        }
+    };
+
+    /**
+     * test if request carries a value with this name
+     * @param context bind context of request
+     * @param name parameter name
+     * @return true if present
+     */
+    abstract boolean isPresent(BindContext context, String name);
+
+    /**
+     * all values of a multi valued source
+     * @param context routing context
+     * @return values, null if source is not multi valued
+     */
+    MultiMap values(RoutingContext context) {
+        return null;
+    }
+
+}
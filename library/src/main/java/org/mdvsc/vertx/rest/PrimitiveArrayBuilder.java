@@ -0,0 +1,170 @@
+package org.mdvsc.vertx.rest;
+
+import org.mdvsc.vertx.utils.Splitter;
+import org.mdvsc.vertx.utils.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Parses textual items straight into a primitive array, without boxing elements or collecting them into a list.
+ * Created per request, as splitting consumer it cuts each item between the splitter item start and end strings.
+ */
+abstract class PrimitiveArrayBuilder implements Splitter.RangeConsumer {
+
+    private final Splitter splitter;
+    int size;
+
+    PrimitiveArrayBuilder(Splitter splitter) {
+        this.splitter = splitter;
+    }
+
+    /**
+     * test if array type has a primitive builder
+     * @param arrayType array type
+     * @return true if yes
+     */
+    static boolean supports(Class<?> arrayType) {
+        return arrayType == int[].class || arrayType == long[].class || arrayType == double[].class || arrayType == boolean[].class;
+    }
+
+    /**
+     * create builder
+     * @param arrayType array type, must be {@link #supports(Class) supported}
+     * @param splitter splitter of parameter
+     * @param capacity expected item count
+     * @return builder
+     */
+    static PrimitiveArrayBuilder create(Class<?> arrayType, Splitter splitter, int capacity) {
+        if (arrayType == int[].class) return new IntBuilder(splitter, capacity);
+        if (arrayType == long[].class) return new LongBuilder(splitter, capacity);
+        if (arrayType == double[].class) return new DoubleBuilder(splitter, capacity);
+        if (arrayType == boolean[].class) return new BooleanBuilder(splitter, capacity);
+        throw new IllegalArgumentException("no primitive array builder for " + arrayType.getName());
+    }
+
+    /**
+     * parse one item and append it
+     * @param content content
+     * @param start item start, inclusive
+     * @param end item end, exclusive
+     * @return false if item is malformed
+     */
+    abstract boolean add(CharSequence content, int start, int end);
+
+    /**
+     * @return array of appended items, sized to item count
+     */
+    abstract Object build();
+
+    @Override
+    public boolean accept(CharSequence content, int start, int end) {
+        final int itemStart = splitter.betweenStart(content, start, end);
+        return add(content, itemStart, splitter.betweenEnd(content, itemStart, end));
+    }
+
+    private static final class IntBuilder extends PrimitiveArrayBuilder {
+
+        private int[] values;
+
+        IntBuilder(Splitter splitter, int capacity) {
+            super(splitter);
+            values = new int[capacity];
+        }
+
+        @Override
+        boolean add(CharSequence content, int start, int end) {
+            while (start < end && content.charAt(start) <= ' ') start++;
+            while (end > start && content.charAt(end - 1) <= ' ') end--;
+            // int range never contains Long.MIN_VALUE
+            long value = StringUtils.parseLong(content, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE);
+            if (value == Long.MIN_VALUE) return false;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2 + 1);
+            values[size++] = (int) value;
+            return true;
+        }
+
+        @Override
+        Object build() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+    }
+
+    private static final class LongBuilder extends PrimitiveArrayBuilder {
+
+        private long[] values;
+
+        LongBuilder(Splitter splitter, int capacity) {
+            super(splitter);
+            values = new long[capacity];
+        }
+
+        @Override
+        boolean add(CharSequence content, int start, int end) {
+            while (start < end && content.charAt(start) <= ' ') start++;
+            while (end > start && content.charAt(end - 1) <= ' ') end--;
+            long value = StringUtils.parseLong(content, start, end, Long.MIN_VALUE, Long.MAX_VALUE, 0L);
+            // zero is also the invalid mark, tell them apart, boxed zero is cached
+            if (value == 0L && StringUtils.tryParseLong(content, start, end, Long.MIN_VALUE, Long.MAX_VALUE) == null) return false;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2 + 1);
+            values[size++] = value;
+            return true;
+        }
+
+        @Override
+        Object build() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+    }
+
+    private static final class DoubleBuilder extends PrimitiveArrayBuilder {
+
+        private double[] values;
+
+        DoubleBuilder(Splitter splitter, int capacity) {
+            super(splitter);
+            values = new double[capacity];
+        }
+
+        @Override
+        boolean add(CharSequence content, int start, int end) {
+            while (start < end && content.charAt(start) <= ' ') start++;
+            while (end > start && content.charAt(end - 1) <= ' ') end--;
+            if (!StringUtils.isDecimal(content, start, end)) return false;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2 + 1);
+            values[size++] = Double.parseDouble(ValueConverter.substring(content, start, end));
+            return true;
+        }
+
+        @Override
+        Object build() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+    }
+
+    private static final class BooleanBuilder extends PrimitiveArrayBuilder {
+
+        private boolean[] values;
+
+        BooleanBuilder(Splitter splitter, int capacity) {
+            super(splitter);
+            values = new boolean[capacity];
+        }
+
+        @Override
+        boolean add(CharSequence content, int start, int end) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2 + 1);
+            values[size++] = ValueConverter.isTrue(content, start, end);
+            return true;
+        }
+
+        @Override
+        Object build() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
+    }
+
+}
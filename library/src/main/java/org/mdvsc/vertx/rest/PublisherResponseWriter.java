@@ -0,0 +1,121 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Writes elements of a returned publisher to chunked response as they arrive.
+ * Buffer elements are written as is, other elements as one sequence framed by the serializer.
+ * Elements are requested in small batches, and only while response write queue is not full,
+ * so slow clients slow down the publisher. Response is only touched on the request context.
+ * Only loaded when reactive streams are on classpath.
+ */
+final class PublisherResponseWriter implements Subscriber<Object> {
+
+    private static final int REQUEST_BATCH = 16;
+
+    private final RoutingContext routingContext;
+    private final Context context;
+    private final HttpServerResponse response;
+    private final SequenceWriter sequenceWriter;
+    private Subscription subscription;
+    private int outstanding = 0;
+    private boolean done = false;
+    private boolean isRaw = false;
+
+    private PublisherResponseWriter(RoutingContext routingContext, Context context, Serializer serializer) {
+        this.routingContext = routingContext;
+        this.context = context;
+        this.response = routingContext.response();
+        this.sequenceWriter = new SequenceWriter(response, serializer, 0);
+    }
+
+    /**
+     * subscribe returned publisher, rxjava Observable is buffered as it has no backpressure
+     * @param result publisher or rxjava Observable
+     * @param routingContext routing context
+     * @param context context of request
+     * @param serializer serializer
+     */
+    @SuppressWarnings("unchecked")
+    static void write(Object result, RoutingContext routingContext, Context context, Serializer serializer) {
+        Publisher<Object> publisher = result instanceof Publisher
+                ? (Publisher<Object>) result
+                : ((io.reactivex.Observable<Object>) result).toFlowable(io.reactivex.BackpressureStrategy.BUFFER);
+        publisher.subscribe(new PublisherResponseWriter(routingContext, context, serializer));
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        context.runOnContext(v -> {
+            subscription = s;
+            if (response.closed()) {
+                cancel();
+                return;
+            }
+            response.setChunked(true);
+            ResponseCloseHandlers.add(routingContext, e -> cancel());
+            requestMore();
+        });
+    }
+
+    @Override
+    public void onNext(Object element) {
+        context.runOnContext(v -> {
+            if (done) return;
+            if (element instanceof Buffer) {
+                isRaw = true;
+                response.write((Buffer) element);
+            } else sequenceWriter.write(element);
+            if (--outstanding == 0) requestMore();
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        context.runOnContext(v -> {
+            if (done) return;
+            done = true;
+            if (!response.headWritten()) {
+                if (!routingContext.failed()) routingContext.fail(throwable);
+            } else {
+                // chunked response already started, only closing tells client it is broken
+                response.close();
+            }
+        });
+    }
+
+    @Override
+    public void onComplete() {
+        context.runOnContext(v -> {
+            if (done) return;
+            done = true;
+            if (isRaw && !sequenceWriter.isStarted()) response.end(); else sequenceWriter.end();
+        });
+    }
+
+    private void requestMore() {
+        if (done) return;
+        if (response.writeQueueFull()) {
+            response.drainHandler(e -> {
+                response.drainHandler(null);
+                requestMore();
+            });
+        } else {
+            outstanding = REQUEST_BATCH;
+            subscription.request(REQUEST_BATCH);
+        }
+    }
+
+    private void cancel() {
+        if (done) return;
+        done = true;
+        subscription.cancel();
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a paused read stream with backpressure, the stream is resumed only while subscriber has demand.
+ * Stream is touched on its own context only, subscriber may request from any thread.
+ * Only loaded when rxjava is on classpath.
+ */
+final class ReadStreamPublisher implements Publisher<Buffer> {
+
+    private final ReadStream<Buffer> stream;
+    private final Context context;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private ReadStreamPublisher(ReadStream<Buffer> stream, Context context) {
+        this.stream = stream;
+        this.context = context;
+    }
+
+    /**
+     * @param stream paused stream
+     * @param context context of stream
+     * @return rxjava Flowable of stream
+     */
+    static Object toFlowable(ReadStream<Buffer> stream, Context context) {
+        return io.reactivex.Flowable.fromPublisher(new ReadStreamPublisher(stream, context));
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Buffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("request body can only be subscribed once"));
+            return;
+        }
+        final StreamSubscription subscription = new StreamSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        context.runOnContext(v -> subscription.start());
+    }
+
+    private final class StreamSubscription implements Subscription {
+
+        private final Subscriber<? super Buffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private volatile boolean cancelled;
+        private boolean started;
+
+        StreamSubscription(Subscriber<? super Buffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            if (cancelled) return;
+            started = true;
+            stream.exceptionHandler(e -> {
+                if (!cancelled) subscriber.onError(e);
+            });
+            stream.endHandler(v -> {
+                if (!cancelled) subscriber.onComplete();
+            });
+            stream.handler(buffer -> {
+                if (cancelled) return;
+                subscriber.onNext(buffer);
+                long current;
+                do {
+                    current = demand.get();
+                    if (current == Long.MAX_VALUE) return;
+                } while (!demand.compareAndSet(current, current - 1));
+                if (current == 1) stream.pause();
+            });
+            if (demand.get() > 0) stream.resume();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("non-positive request " + n));
+                return;
+            }
+            long current, next;
+            do {
+                current = demand.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!demand.compareAndSet(current, next));
+            if (current == 0) context.runOnContext(v -> {
+                if (started && !cancelled && demand.get() > 0) stream.resume();
+            });
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            // drop rest of body
+            context.runOnContext(v -> {
+                stream.handler(null);
+                stream.resume();
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.mdvsc.vertx.rest;
+
+/**
+ * Route methods of a resource class, generated at compile time by the rest-mapper annotation processor.
+ * When a registrar exists for a resource, {@link RestMapper} registers the listed methods instead of scanning
+ * declared methods, and invokes them through {@link #invoke(int, Object, Object[])} instead of reflection.
+ * Only invocation is generated, Method and annotation objects are still read once at registration,
+ * since {@link MethodCache} exposes them to interceptors and binders are built from them.
+ *
+ * @author HanikLZ
+ */
+public interface ResourceRegistrar {
+
+    /**
+     * suffix of generated class name, appended to the binary name of resource class with '$' replaced by '_'
+     */
+    String CLASS_NAME_SUFFIX = "_RestRegistrar";
+
+    /**
+     * names of route methods, in source order
+     * @return method names
+     */
+    String[] methodNames();
+
+    /**
+     * parameter types of route methods, same order as {@link #methodNames()}
+     * @return parameter types
+     */
+    Class<?>[][] parameterTypes();
+
+    /**
+     * call route method directly
+     * @param methodIndex index in {@link #methodNames()}
+     * @param target resource instance, ignored for static method
+     * @param arguments bound arguments
+     * @return method return value, null if void
+     * @throws Throwable exception thrown by method
+     */
+    Object invoke(int methodIndex, Object target, Object[] arguments) throws Throwable;
+
+}
@@ -0,0 +1,111 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serialized responses of a {@link Cacheable} method, evicted by approximate least recently used order.
+ * Hits take no lock, they only stamp their entry with access time, so event loops of other threads never wait on
+ * each other. Puts beyond max entries evict the least recently used one of a sample of entries, which is exact
+ * for caches up to sample size. Cached buffers are only written, responses never release them.
+ */
+public final class ResponseCache {
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final ConcurrentHashMap<CallKey, CachedBody> entries = new ConcurrentHashMap<>();
+
+    ResponseCache(Cacheable cacheable) {
+        this.ttlNanos = cacheable.ttl() > 0 ? TimeUnit.MILLISECONDS.toNanos(cacheable.ttl()) : 0;
+        this.maxEntries = Math.max(1, cacheable.maxEntries());
+    }
+
+    /**
+     * cached response body
+     * @param key key of call
+     * @return body, null if absent or expired
+     */
+    Buffer get(CallKey key) {
+        final CachedBody entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        final long now = System.nanoTime();
+        if (ttlNanos > 0 && now - entry.createdAt > ttlNanos) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        entry.accessedAt = now;
+        hits.increment();
+        return entry.body;
+    }
+
+    void put(CallKey key, Buffer body) {
+        entries.put(key, new CachedBody(body, System.nanoTime()));
+        while (entries.size() > maxEntries) evictOne();
+    }
+
+    /**
+     * evict least recently used entry of a sample
+     */
+    private void evictOne() {
+        Map.Entry<CallKey, CachedBody> eldest = null;
+        final Iterator<Map.Entry<CallKey, CachedBody>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+            final Map.Entry<CallKey, CachedBody> entry = iterator.next();
+            if (eldest == null || entry.getValue().accessedAt - eldest.getValue().accessedAt < 0) eldest = entry;
+        }
+        // racing puts may evict the same entry, only the one removing it counts
+        if (eldest != null && entries.remove(eldest.getKey(), eldest.getValue())) evictions.increment();
+    }
+
+    /**
+     * remove all entries, counters are kept
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class CachedBody {
+
+        final Buffer body;
+        final long createdAt;
+        volatile long accessedAt;
+
+        CachedBody(Buffer body, long createdAt) {
+            this.body = body;
+            this.createdAt = createdAt;
+            this.accessedAt = createdAt;
+        }
+
+    }
+
+}
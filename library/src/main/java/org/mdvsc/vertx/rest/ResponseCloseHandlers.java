@@ -0,0 +1,56 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Close handlers of a response, which holds only one. The first added handler installs the response close handler,
+ * which runs every added handler in order, so streaming writers, coalesced calls and concurrency limits do not
+ * replace each other. Resource methods and interceptors add theirs here too, setting the response close handler
+ * directly replaces all of these.
+ */
+public final class ResponseCloseHandlers {
+
+    private static final String KEY = ResponseCloseHandlers.class.getName();
+
+    private final List<Handler<Void>> handlers = new ArrayList<>(2);
+
+    private ResponseCloseHandlers() {
+    }
+
+    /**
+     * run handler when response is closed before it ends, such as by a gone client, call on the request context
+     * @param context routing context of response
+     * @param handler handler, run right away if response is closed already
+     */
+    public static void add(RoutingContext context, Handler<Void> handler) {
+        if (context.response().closed()) {
+            handler.handle(null);
+            return;
+        }
+        ResponseCloseHandlers closeHandlers = context.get(KEY);
+        if (closeHandlers == null) {
+            final ResponseCloseHandlers created = new ResponseCloseHandlers();
+            context.put(KEY, created);
+            context.response().closeHandler(v -> created.close());
+            closeHandlers = created;
+        }
+        closeHandlers.handlers.add(handler);
+    }
+
+    private void close() {
+        RuntimeException failure = null;
+        for (Handler<Void> handler : handlers) {
+            try {
+                handler.handle(null);
+            } catch (RuntimeException e) { // later handlers still release what they hold
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+}
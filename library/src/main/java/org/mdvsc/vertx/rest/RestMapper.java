@@ -1,17 +1,25 @@
 package org.mdvsc.vertx.rest;
 
+import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.Json;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
 import org.mdvsc.vertx.utils.StringUtils;
 import org.mdvsc.vertx.utils.UrlUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * restful routing mapper
@@ -33,27 +41,7 @@ public class RestMapper implements ContextProvider {
         ANNOTATION_MAP.put(OPTIONS.class, HttpMethod.OPTIONS);
     }
 
-    private static final Serializer DEFAULT_SERIALIZER = new Serializer() {
-        @Override
-        public String mediaEncode() {
-            return "utf-8";
-        }
-
-        @Override
-        public String mediaType() {
-            return MediaType.APPLICATION_JSON;
-        }
-
-        @Override
-        public String serialize(Object object) {
-            return Json.encodePrettily(object);
-        }
-
-        @Override
-        public <T> T deserialize(String content, Class<T> clz) {
-            return Json.decodeValue(content, clz);
-        }
-    };
+    private static final Serializer DEFAULT_SERIALIZER = new JacksonSerializer(Json.mapper, MediaType.APPLICATION_JSON, "utf-8");
 
     private static final Comparator<MethodCache> DEFAULT_METHOD_COMPARATOR = (o1, o2) -> {
 
@@ -72,8 +60,24 @@ public class RestMapper implements ContextProvider {
 
     private final Map<Class, Object> contextMap = new HashMap<>();
     private final Map<String, MethodHandler> methodHandlers = new HashMap<>();
+    private final Map<Class, ResourceRegistrar> registrars = new HashMap<>();
+    private final ParamConverters paramConverters = new ParamConverters();
+    private final Serializers serializers = new Serializers();
+    private final ResultAdapters resultAdapters = new ResultAdapters();
+    private final Map<String, WorkerPool> workerPools = new LinkedHashMap<>();
+    private final Map<String, KeyedSerialExecutor> orderedExecutors = new HashMap<>();
+    private final Set<String> streamingRoutes = new HashSet<>();
+    private Supplier<BodyHandler> bodyHandlerFactory = null;
+    private Supplier<ConcurrencyLimiter> concurrencyLimiterFactory = null;
+    private int streamChunkSize = DEFAULT_STREAM_CHUNK_SIZE;
     private ContextProvider extraContextProvider = null;
     private Comparator<MethodCache> methodComparator = null;
+    private boolean useReflectionInvoke = false;
+    private boolean useVirtualThreads = false;
+
+    public static final int DEFAULT_STREAM_CHUNK_SIZE = 16 * 1024;
+    private static final String STREAMING_BODY_KEY = RestMapper.class.getName() + ".streamingBody";
+    private static final int STREAMING_ROUTE_ORDER = Integer.MIN_VALUE;
 
     /**
      * default constructor
@@ -93,6 +97,9 @@ public class RestMapper implements ContextProvider {
             injectContext(contextMap.get(clz));
             applyTopRouteResource(router, root, clz);
         });
+        methodHandlers.values().forEach(MethodHandler::compile);
+        methodHandlers.values().forEach(handler -> handler.configureLimiter(concurrencyLimiterFactory));
+        if (bodyHandlerFactory != null) methodHandlers.values().forEach(handler -> handler.configureBody(bodyHandlerFactory));
     }
 
     /**
@@ -185,6 +192,155 @@ public class RestMapper implements ContextProvider {
         this.methodComparator = methodComparator;
     }
 
+    /**
+     * invoke resource methods through core reflection instead of method handles,
+     * affects routes applied after this call
+     *
+     * @param useReflectionInvoke true to use reflection
+     */
+    public void setReflectionInvoke(boolean useReflectionInvoke) {
+        this.useReflectionInvoke = useReflectionInvoke;
+    }
+
+    /**
+     * invoke {@link Blocking} methods without worker pool on virtual threads when runtime supports them,
+     * as if annotated {@link Blocking#virtual()}, affects routes applied after this call
+     *
+     * @param useVirtualThreads true to use virtual threads
+     */
+    public void setVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    /**
+     * bytes collected before writing a chunk, when Iterator, Iterable or Stream result is written as JSON array,
+     * affects routes applied after this call
+     *
+     * @param streamChunkSize chunk size in bytes, 0 to write every element
+     */
+    public void setStreamChunkSize(int streamChunkSize) {
+        if (streamChunkSize < 0) throw new IllegalArgumentException("negative chunk size " + streamChunkSize);
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    /**
+     * attach body handlers to routes whose methods read body, instead of one body handler for all routes,
+     * each created by factory then adjusted by {@link BodyConfig} of route methods,
+     * affects routes applied after this call
+     *
+     * @param bodyHandlerFactory factory of default body handler, null to attach none
+     */
+    public void setBodyHandlerFactory(Supplier<BodyHandler> bodyHandlerFactory) {
+        this.bodyHandlerFactory = bodyHandlerFactory;
+    }
+
+    /**
+     * wrap body handler to skip requests of methods taking {@link Body} as {@link io.vertx.core.streams.ReadStream}
+     * or Flowable, whose body is read by method as it arrives. Install the result in place of body handler
+     * on routes shared with this mapper.
+     * Other methods sharing a route with a streaming method get no aggregated body either.
+     *
+     * @param bodyHandler body handler
+     * @return handler
+     */
+    public Handler<RoutingContext> skipStreamingBody(Handler<RoutingContext> bodyHandler) {
+        return event -> {
+            if (event.get(STREAMING_BODY_KEY) != null) event.next(); else bodyHandler.handle(event);
+        };
+    }
+
+    /**
+     * register converter of query, header, field, path and body values,
+     * replaces built-in converter and serializer for this exact type, String and primitive types are always
+     * converted by mapper, affects routes applied after this call
+     *
+     * @param type      parameter type or array, list element type
+     * @param converter converter
+     * @param <T>       parameter type
+     */
+    public <T> void registerParamConverter(Class<T> type, ParamConverter<? extends T> converter) {
+        paramConverters.register(type, converter);
+    }
+
+    /**
+     * register serializer for its media type, selected by produces type or Accept header for responses
+     * and by request content type for bodies, context {@link Serializer} stays the default of all.
+     * Register before routes are served.
+     *
+     * @param serializer serializer, such as {@link JacksonSerializer} over a binary data format
+     */
+    public void registerSerializer(Serializer serializer) {
+        serializers.register(serializer);
+    }
+
+    /**
+     * register adapter of asynchronous method results, matched before built-in adapters and in registration order
+     *
+     * @param type    result type, matched by instance
+     * @param adapter adapter
+     * @param <T>     result type
+     */
+    public <T> void registerResultAdapter(Class<T> type, ResultAdapter<? super T> adapter) {
+        resultAdapters.register(type, adapter);
+    }
+
+    /**
+     * register worker pool of {@link Blocking#pool()} methods by its name, register before routes are applied
+     *
+     * @param workerPool worker pool
+     */
+    public void registerWorkerPool(WorkerPool workerPool) {
+        workerPools.put(workerPool.getName(), workerPool);
+    }
+
+    /**
+     * registered worker pools, for queue depth and active thread counts
+     *
+     * @return worker pools by name
+     */
+    public Map<String, WorkerPool> getWorkerPools() {
+        return Collections.unmodifiableMap(workerPools);
+    }
+
+    /**
+     * set factory of concurrency limiters of routes without {@link ConcurrencyLimit} methods,
+     * affects routes applied after this call
+     *
+     * @param concurrencyLimiterFactory factory creating a limiter for each route, null to leave routes unlimited
+     */
+    public void setConcurrencyLimiterFactory(Supplier<ConcurrencyLimiter> concurrencyLimiterFactory) {
+        this.concurrencyLimiterFactory = concurrencyLimiterFactory;
+    }
+
+    /**
+     * concurrency limiters of applied routes, methods of one route share its limiter
+     *
+     * @return limiters by method
+     */
+    public Map<Method, ConcurrencyLimiter> getConcurrencyLimiters() {
+        final Map<Method, ConcurrencyLimiter> limiters = new HashMap<>();
+        for (MethodHandler handler : methodHandlers.values()) {
+            if (handler.getConcurrencyLimiter() == null) continue;
+            for (MethodCache cache : handler.getHandleMethods()) limiters.put(cache.getMethod(), handler.getConcurrencyLimiter());
+        }
+        return limiters;
+    }
+
+    /**
+     * response caches of applied {@link Cacheable} methods, for hit and miss counters
+     *
+     * @return caches by method
+     */
+    public Map<Method, ResponseCache> getResponseCaches() {
+        final Map<Method, ResponseCache> caches = new HashMap<>();
+        for (MethodHandler handler : methodHandlers.values()) {
+            for (MethodCache cache : handler.getHandleMethods()) {
+                if (cache.getResponseCache() != null) caches.put(cache.getMethod(), cache.getResponseCache());
+            }
+        }
+        return caches;
+    }
+
     private void applyTopRouteResource(Router router, String baseUrl, Class clz) {
         UrlHolder baseUrlHolder = UrlHolder.fromClass(clz, baseUrl, false);
         if (baseUrlHolder == null || baseUrlHolder.ignoreDeploy()) return;
@@ -204,7 +360,24 @@ public class RestMapper implements ContextProvider {
     }
 
     private void applyRouteResource(Router router, Class clz, String baseUrl, boolean isRegexUrl, Produces produces, Consumes consumes, boolean isApplyChild) {
-        for (Method method : clz.getDeclaredMethods()) {
+        final ResourceRegistrar registrar = useReflectionInvoke ? null : findRegistrar(clz);
+        Method[] methods = null;
+        if (registrar != null) {
+            final String[] names = registrar.methodNames();
+            final Class<?>[][] parameterTypes = registrar.parameterTypes();
+            methods = new Method[names.length];
+            try {
+                for (int i = 0; i < names.length; i++) {
+                    methods[i] = clz.getDeclaredMethod(names[i], parameterTypes[i]);
+                }
+            } catch (NoSuchMethodException e) { // registrar is stale
+                methods = null;
+            }
+        }
+        final boolean isGenerated = methods != null;
+        if (!isGenerated) methods = clz.getDeclaredMethods();
+        for (int methodIndex = 0; methodIndex < methods.length; methodIndex++) {
+            final Method method = methods[methodIndex];
             Annotation[] methodAnnotations = method.getDeclaredAnnotations();
             UrlHolder urlHolder = UrlHolder.fromAnnotations(methodAnnotations, baseUrl, true);
             if (!isApplyChild && urlHolder.ignoreDeploy() || isApplyChild && urlHolder.ignoreChildDeploy()) continue;
@@ -236,27 +409,67 @@ public class RestMapper implements ContextProvider {
                     final String methodKey = builder.toString() + splitChar + annotationType;
                     MethodHandler restHandler = methodHandlers.get(methodKey);
                     if (restHandler == null) {
-                        methodHandlers.put(methodKey, restHandler = new MethodHandler(clz, this));
-                        Route route = isRegexUrl ? router.routeWithRegex(httpMethod, applyUrlStr) : router.route(httpMethod, applyUrlStr);
-                        if (consumes != null) {
-                            for (String c : consumes.value()) {
-                                if (!StringUtils.isNullOrBlank(c)) route = route.consumes(c.trim());
-                            }
-                        }
-                        if (produces != null) {
-                            for (String p : produces.value()) {
-                                if (!StringUtils.isNullOrBlank(p)) route = route.produces(p.trim());
-                            }
-                        }
+                        methodHandlers.put(methodKey, restHandler = new MethodHandler(clz, this, useReflectionInvoke, paramConverters, streamChunkSize, serializers, resultAdapters));
+                        Route route = createRoute(router, httpMethod, applyUrlStr, isRegexUrl, consumes, produces);
+                        if (bodyHandlerFactory != null) route.handler(restHandler.getBodyHandler());
                         route.handler(restHandler).failureHandler(restHandler);
                     }
-                    restHandler.addHandleMethod(method, methodComparator);
+                    final MethodCache methodCache = restHandler.addHandleMethod(method, isGenerated ? MethodInvoker.create(registrar, methodIndex) : null, methodComparator);
+                    if (methodCache.getBlockingPool() != null) {
+                        final WorkerPool workerPool = workerPools.get(methodCache.getBlockingPool());
+                        if (workerPool == null) throw new IllegalArgumentException(String.format("Worker pool %s of %s not registered.", methodCache.getBlockingPool(), method));
+                        methodCache.setWorkerPool(workerPool);
+                    }
+                    if (useVirtualThreads && methodCache.isBlocking() && methodCache.getWorkerPool() == null) methodCache.setVirtualBlocking(true);
+                    if (methodCache.getOrderBy() != null) {
+                        methodCache.setOrderedExecutor(orderedExecutors.computeIfAbsent(methodCache.getOrderBy(), name -> new KeyedSerialExecutor()));
+                    }
+                    if (methodCache.isStreamingBody() && streamingRoutes.add(methodKey)) {
+                        // matches before body handlers, marks request so they leave body unread
+                        createRoute(router, httpMethod, applyUrlStr, isRegexUrl, consumes, produces).order(STREAMING_ROUTE_ORDER).handler(event -> {
+                            event.put(STREAMING_BODY_KEY, Boolean.TRUE);
+                            event.next();
+                        });
+                    }
                 }
             }
             applyChildRouteResource(router, urlHolder, isRegexUrl, produces, consumes);
         }
     }
 
+    private static Route createRoute(Router router, HttpMethod httpMethod, String url, boolean isRegexUrl, Consumes consumes, Produces produces) {
+        Route route = isRegexUrl ? router.routeWithRegex(httpMethod, url) : router.route(httpMethod, url);
+        if (consumes != null) {
+            for (String c : consumes.value()) {
+                if (!StringUtils.isNullOrBlank(c)) route = route.consumes(c.trim());
+            }
+        }
+        if (produces != null) {
+            for (String p : produces.value()) {
+                if (!StringUtils.isNullOrBlank(p)) route = route.produces(p.trim());
+            }
+        }
+        return route;
+    }
+
+    private ResourceRegistrar findRegistrar(Class clz) {
+        if (registrars.containsKey(clz)) return registrars.get(clz);
+        ResourceRegistrar registrar = null;
+        final String className = clz.getName();
+        final int packageEnd = className.lastIndexOf('.') + 1;
+        final String registrarName = className.substring(0, packageEnd) + className.substring(packageEnd).replace('$', '_') + ResourceRegistrar.CLASS_NAME_SUFFIX;
+        try {
+            Class<?> registrarClass = Class.forName(registrarName, true, clz.getClassLoader());
+            if (ResourceRegistrar.class.isAssignableFrom(registrarClass)) registrar = (ResourceRegistrar) registrarClass.newInstance();
+        } catch (ClassNotFoundException ignored) {
+            // not generated, scan methods
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new UnsupportedOperationException(String.format("Class %s has no default constructor.", registrarName));
+        }
+        registrars.put(clz, registrar);
+        return registrar;
+    }
+
     private static class UrlHolder {
 
         final URL url;
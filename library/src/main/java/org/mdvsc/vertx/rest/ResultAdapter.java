@@ -0,0 +1,22 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * Subscribes to the value of an asynchronous route method result, registered by
+ * {@link RestMapper#registerResultAdapter(Class, ResultAdapter)}. The value is written as if method
+ * returned it, so it may be streamed too, and null ends response empty. Built-in adapters cover
+ * CompletionStage, vertx Future and rx Single, Maybe and Completable.
+ */
+@FunctionalInterface
+public interface ResultAdapter<T> {
+
+    /**
+     * subscribe to value of result
+     * @param result returned result, not null
+     * @param handler called once with value or failure, on any thread
+     */
+    void subscribe(T result, Handler<AsyncResult<Object>> handler);
+
+}
@@ -0,0 +1,77 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Future;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registered and built-in {@link ResultAdapter}s, registered adapters are matched first, in registration order.
+ * Lookup is cached per result class.
+ */
+class ResultAdapters {
+
+    private static final Object NONE = new Object();
+
+    private final List<Entry> registered = new ArrayList<>();
+    private final List<Entry> builtIn = new ArrayList<>();
+    private final ConcurrentHashMap<Class<?>, Object> resolved = new ConcurrentHashMap<>();
+
+    ResultAdapters() {
+        builtIn.add(new Entry(CompletionStage.class, (ResultAdapter<CompletionStage<?>>) (stage, handler) -> stage.whenComplete((value, failure) -> {
+            if (failure instanceof CompletionException && failure.getCause() != null) failure = failure.getCause();
+            handler.handle(failure == null ? Future.succeededFuture(value) : Future.failedFuture(failure));
+        })));
+        builtIn.add(new Entry(Future.class, (ResultAdapter<Future<Object>>) Future::setHandler));
+        if (MethodCaller.findClass("io.reactivex.Single") != null) {
+            RxResultAdapters.forEach((type, adapter) -> builtIn.add(new Entry(type, adapter)));
+        }
+    }
+
+    <T> void register(Class<T> type, ResultAdapter<? super T> adapter) {
+        if (adapter == null) throw new NullPointerException("register null adapter.");
+        registered.add(new Entry(type, adapter));
+        resolved.clear();
+    }
+
+    /**
+     * adapter of result
+     * @param result method result, not null
+     * @return adapter or null
+     */
+    @SuppressWarnings("unchecked")
+    ResultAdapter<Object> find(Object result) {
+        final Class<?> clz = result.getClass();
+        Object adapter = resolved.get(clz);
+        if (adapter == null) {
+            adapter = find(registered, clz);
+            if (adapter == null) adapter = find(builtIn, clz);
+            if (adapter == null) adapter = NONE;
+            resolved.put(clz, adapter);
+        }
+        return adapter == NONE ? null : (ResultAdapter<Object>) adapter;
+    }
+
+    private static ResultAdapter<?> find(List<Entry> entries, Class<?> clz) {
+        for (Entry entry : entries) {
+            if (entry.type.isAssignableFrom(clz)) return entry.adapter;
+        }
+        return null;
+    }
+
+    private static final class Entry {
+
+        final Class<?> type;
+        final ResultAdapter<?> adapter;
+
+        Entry(Class<?> type, ResultAdapter<?> adapter) {
+            this.type = type;
+            this.adapter = adapter;
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Body handler of one route, placed before its method handler and configured from route methods
+ * once all of them are added. Routes without body reading methods pass requests through.
+ */
+class RouteBodyHandler implements Handler<RoutingContext> {
+
+    private volatile Handler<RoutingContext> bodyHandler;
+
+    /**
+     * configure from route methods
+     * @param methods route methods
+     * @param factory default body handler factory
+     */
+    void configure(List<MethodCache> methods, Supplier<BodyHandler> factory) {
+        long limit = -1;
+        boolean defaultLimit = false;
+        boolean uploads = false;
+        String uploadPath = null;
+        boolean readsBody = false;
+        for (MethodCache method : methods) {
+            if (method.isStreamingBody()) {
+                readsBody = false;
+                break;
+            }
+            if (!method.isReadingBody()) continue;
+            readsBody = true;
+            final BodyConfig methodConfig = method.firstAnnotation(BodyConfig.class);
+            final BodyConfig classConfig = method.getMethod().getDeclaringClass().getAnnotation(BodyConfig.class);
+            long methodLimit = methodConfig != null && methodConfig.limit() >= 0 ? methodConfig.limit() : classConfig != null ? classConfig.limit() : -1;
+            // methods sharing a route share the largest configured limit, unless one of them keeps default
+            if (methodLimit < 0) defaultLimit = true; else limit = Math.max(limit, methodLimit);
+            uploads |= methodConfig != null ? methodConfig.uploads() : classConfig == null || classConfig.uploads();
+            if (uploadPath == null) {
+                if (methodConfig != null && !methodConfig.uploadPath().isEmpty()) uploadPath = methodConfig.uploadPath();
+                else if (classConfig != null && !classConfig.uploadPath().isEmpty()) uploadPath = classConfig.uploadPath();
+            }
+        }
+        if (!readsBody) {
+            bodyHandler = null;
+            return;
+        }
+        final BodyHandler handler = factory.get();
+        if (!defaultLimit && limit >= 0) handler.setBodyLimit(limit);
+        if (!uploads) handler.setHandleFileUploads(false);
+        if (uploadPath != null) handler.setUploadsDirectory(uploadPath);
+        bodyHandler = handler;
+    }
+
+    @Override
+    public void handle(RoutingContext event) {
+        final Handler<RoutingContext> handler = bodyHandler;
+        if (handler == null) event.next(); else handler.handle(event);
+    }
+
+}
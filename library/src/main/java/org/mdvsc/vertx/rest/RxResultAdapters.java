@@ -0,0 +1,31 @@
+package org.mdvsc.vertx.rest;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.vertx.core.Future;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Built-in adapters of rx Single, Maybe and Completable, only loaded if rxjava is present.
+ */
+final class RxResultAdapters {
+
+    private RxResultAdapters() {
+    }
+
+    static void forEach(BiConsumer<Class<?>, ResultAdapter<?>> consumer) {
+        consumer.accept(Single.class, (ResultAdapter<Single<Object>>) (single, handler) -> single.subscribe(
+                value -> handler.handle(Future.succeededFuture(value)),
+                failure -> handler.handle(Future.failedFuture(failure))));
+        consumer.accept(Maybe.class, (ResultAdapter<Maybe<Object>>) (maybe, handler) -> maybe.subscribe(
+                value -> handler.handle(Future.succeededFuture(value)),
+                failure -> handler.handle(Future.failedFuture(failure)),
+                () -> handler.handle(Future.succeededFuture())));
+        consumer.accept(Completable.class, (ResultAdapter<Completable>) (completable, handler) -> completable.subscribe(
+                () -> handler.handle(Future.succeededFuture()),
+                failure -> handler.handle(Future.failedFuture(failure))));
+    }
+
+}
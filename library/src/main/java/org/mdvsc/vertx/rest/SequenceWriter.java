@@ -0,0 +1,100 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes elements to a chunked response as one sequence framed by the serializer, a JSON array by default,
+ * each element serialized on its own. Elements are collected until chunk size is reached, so at most one chunk
+ * is held besides the write queue. Elements of serializers that cannot frame sequences are collected
+ * and serialized as one list when writing ends.
+ */
+final class SequenceWriter {
+
+    private final HttpServerResponse response;
+    private final Serializer serializer;
+    private final int chunkSize;
+    private final boolean isStreamable;
+    private Buffer pending = null;
+    private List<Object> collected = null;
+    private boolean started = false;
+
+    /**
+     * @param response chunked response
+     * @param serializer element serializer
+     * @param chunkSize bytes collected before writing, 0 to write every element
+     */
+    SequenceWriter(HttpServerResponse response, Serializer serializer, int chunkSize) {
+        this.response = response;
+        this.serializer = serializer;
+        this.chunkSize = chunkSize;
+        this.isStreamable = serializer.isSequenceStreamable();
+    }
+
+    /**
+     * write one element
+     * @param element element
+     * @return true if a chunk is written to response
+     */
+    boolean write(Object element) {
+        if (!append(element)) return false;
+        response.write(takeChunk());
+        return true;
+    }
+
+    /**
+     * collect one element without touching response, on any thread writing to this writer in turn
+     * @param element element
+     * @return true if chunk size is reached and chunk should be {@link #takeChunk() taken}
+     */
+    boolean append(Object element) {
+        if (!isStreamable) {
+            if (collected == null) collected = new ArrayList<>();
+            collected.add(element);
+            started = true;
+            return false;
+        }
+        if (pending == null) pending = Buffer.buffer(chunkSize > 0 ? chunkSize + 64 : 64);
+        if (started) serializer.sequenceSeparator(pending); else serializer.sequenceStart(pending);
+        serializer.serialize(element, pending);
+        started = true;
+        return pending.length() >= chunkSize;
+    }
+
+    /**
+     * @return collected elements, null if none
+     */
+    Buffer takeChunk() {
+        final Buffer chunk = pending;
+        pending = null;
+        return chunk;
+    }
+
+    /**
+     * @return true if some element is written
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * close sequence and end response
+     */
+    void end() {
+        Buffer last = pending != null ? pending : Buffer.buffer(2);
+        pending = null;
+        if (!isStreamable) {
+            serializer.serialize(collected == null ? Collections.emptyList() : collected, last);
+            collected = null;
+        } else {
+            if (!started) serializer.sequenceStart(last);
+            serializer.sequenceEnd(last);
+        }
+        response.end(last);
+    }
+
+}
@@ -1,5 +1,9 @@
 package org.mdvsc.vertx.rest;
 
+import io.vertx.core.buffer.Buffer;
+
+import java.util.Locale;
+
 /**
  * @author HanikLZ
  * @since 2017/3/8
@@ -7,6 +11,9 @@ package org.mdvsc.vertx.rest;
 
 public interface Serializer {
 
+    /**
+     * @return charset of content, null for binary content carried as ISO-8859-1 chars by String methods
+     */
     String mediaEncode();
 
     String mediaType();
@@ -15,5 +22,73 @@ public interface Serializer {
 
     <T> T deserialize(String content, Class<T> clz);
 
-}
+    /**
+     * serializer specialized for values of a declared type, resolved once per route method return type
+     * and body parameter type. Values of other types must be handled as by this serializer.
+     * @param type declared type
+     * @return specialized serializer, this by default
+     */
+    default Serializer forType(Class<?> type) {
+        return this;
+    }
+
+    /**
+     * serialize object, appending encoded bytes to buffer.
+     * Override to encode without building a String first, mapper writes responses through this.
+     * @param object object
+     * @param buffer buffer to append to
+     */
+    default void serialize(Object object, Buffer buffer) {
+        final String mediaEncode = mediaEncode();
+        buffer.appendString(serialize(object), mediaEncode == null ? "ISO-8859-1" : mediaEncode);
+    }
+
+    /**
+     * deserialize encoded bytes.
+     * Override to decode without building a String first, mapper reads request body through this.
+     * @param content encoded content
+     * @param clz target class
+     * @param <T> target type
+     * @return object
+     */
+    default <T> T deserialize(Buffer content, Class<T> clz) {
+        final String mediaEncode = mediaEncode();
+        return deserialize(content.toString(mediaEncode == null ? "ISO-8859-1" : mediaEncode), clz);
+    }
 
+    /**
+     * test if elements of streamed results, such as returned Iterator or Flowable, can be serialized one by one
+     * and framed by {@link #sequenceStart(Buffer)}, {@link #sequenceSeparator(Buffer)} and {@link #sequenceEnd(Buffer)}.
+     * Streamed results of other serializers are collected and serialized as one list.
+     * @return true for JSON media types by default
+     */
+    default boolean isSequenceStreamable() {
+        final String mediaType = mediaType();
+        return mediaEncode() != null && mediaType != null && mediaType.toLowerCase(Locale.ENGLISH).contains("json");
+    }
+
+    /**
+     * append start of streamed sequence, JSON array start by default
+     * @param buffer buffer to append to
+     */
+    default void sequenceStart(Buffer buffer) {
+        buffer.appendByte((byte) '[');
+    }
+
+    /**
+     * append separator between elements of streamed sequence, JSON array separator by default
+     * @param buffer buffer to append to
+     */
+    default void sequenceSeparator(Buffer buffer) {
+        buffer.appendByte((byte) ',');
+    }
+
+    /**
+     * append end of streamed sequence, JSON array end by default
+     * @param buffer buffer to append to
+     */
+    default void sequenceEnd(Buffer buffer) {
+        buffer.appendByte((byte) ']');
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Registered {@link Serializer}s keyed by media type, the context serializer is the default of all.
+ * Routes with produces types get their response type negotiated by router already, it is looked up directly,
+ * otherwise the Accept header is matched. Request body serializer follows request content type.
+ */
+class Serializers {
+
+    private final Map<String, Serializer> serializers = new LinkedHashMap<>();
+
+    void register(Serializer serializer) {
+        if (serializer == null) throw new NullPointerException("register null serializer.");
+        serializers.put(normalize(serializer.mediaType()), serializer);
+    }
+
+    /**
+     * registered serializer of media type
+     * @param mediaType media type, parameters are ignored, nullable
+     * @return serializer or null
+     */
+    Serializer find(String mediaType) {
+        if (mediaType == null || serializers.isEmpty()) return null;
+        final Serializer serializer = serializers.get(mediaType);
+        return serializer != null ? serializer : serializers.get(normalize(mediaType));
+    }
+
+    /**
+     * serializer of response
+     * @param context routing context
+     * @param defaultSerializer context serializer
+     * @return serializer
+     */
+    Serializer forResponse(RoutingContext context, Serializer defaultSerializer) {
+        if (serializers.isEmpty()) return defaultSerializer;
+        final String acceptable = context.getAcceptableContentType();
+        if (acceptable != null) {
+            final Serializer serializer = find(acceptable);
+            return serializer != null ? serializer : defaultSerializer;
+        }
+        final List<MIMEHeader> accepts = context.parsedHeaders().accept();
+        for (MIMEHeader accept : accepts) { // sorted by weight
+            if (accept.weight() <= 0) continue; // q=0, weight also parses header, components are lazy
+            final Serializer serializer = match(accept, defaultSerializer);
+            if (serializer != null) return serializer;
+        }
+        return defaultSerializer;
+    }
+
+    /**
+     * serializer of request body
+     * @param context routing context
+     * @param defaultSerializer context serializer
+     * @return serializer
+     */
+    Serializer forRequest(RoutingContext context, Serializer defaultSerializer) {
+        if (serializers.isEmpty()) return defaultSerializer;
+        final Serializer serializer = find(context.request().getHeader(CONTENT_TYPE));
+        return serializer != null ? serializer : defaultSerializer;
+    }
+
+    private Serializer match(MIMEHeader accept, Serializer defaultSerializer) {
+        final String component = accept.component();
+        final String subComponent = accept.subComponent();
+        final boolean anyComponent = "*".equals(component);
+        final boolean anySubComponent = "*".equals(subComponent);
+        if (anyComponent || anySubComponent) {
+            if (matches(defaultSerializer.mediaType(), component, anyComponent)) return defaultSerializer;
+            for (Map.Entry<String, Serializer> entry : serializers.entrySet()) {
+                if (matches(entry.getKey(), component, anyComponent)) return entry.getValue();
+            }
+            return null;
+        }
+        final String mediaType = normalize(component + '/' + subComponent);
+        if (mediaType.equals(normalize(defaultSerializer.mediaType()))) return defaultSerializer;
+        return serializers.get(mediaType);
+    }
+
+    private static boolean matches(String mediaType, String component, boolean anyComponent) {
+        return anyComponent || mediaType.regionMatches(true, 0, component, 0, component.length())
+                && mediaType.length() > component.length() && mediaType.charAt(component.length()) == '/';
+    }
+
+    private static String normalize(String mediaType) {
+        final int index = mediaType.indexOf(';');
+        return (index >= 0 ? mediaType.substring(0, index) : mediaType).trim().toLowerCase(Locale.ENGLISH);
+    }
+
+}
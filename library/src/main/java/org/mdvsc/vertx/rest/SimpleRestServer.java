@@ -4,14 +4,19 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
 import org.mdvsc.vertx.utils.StringUtils;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -103,6 +108,7 @@ public class SimpleRestServer extends AbstractVerticle {
             httpServer.close();
             httpServer = null;
         }
+        restRouteMapper.getWorkerPools().values().forEach(WorkerPool::close);
     }
 
     protected void onServerListening(HttpServer server) {
@@ -114,15 +120,11 @@ public class SimpleRestServer extends AbstractVerticle {
     }
 
     protected HttpServer onCreateServer(Router router) {
-        BodyHandler bodyHandler;
-        if (serverOptions.uploadPath == null) {
-            bodyHandler = BodyHandler.create();
+        if (serverOptions.globalBodyHandler) {
+            router.route().handler(restRouteMapper.skipStreamingBody(createBodyHandler()));
         } else {
-            bodyHandler = BodyHandler.create(serverOptions.uploadPath);
+            restRouteMapper.setBodyHandlerFactory(this::createBodyHandler);
         }
-        if (serverOptions.bodyLimit > 0) bodyHandler.setBodyLimit(serverOptions.bodyLimit);
-        bodyHandler.setDeleteUploadedFilesOnEnd(serverOptions.deleteUploadedFilesOnEnd).setMergeFormAttributes(serverOptions.mergeFormAttributes);
-        router.route().handler(bodyHandler);
         router.route().failureHandler(event -> {
             Serializer serializer = restRouteMapper.provideContext(Serializer.class);
             Throwable throwable = event.failure();
@@ -133,11 +135,34 @@ public class SimpleRestServer extends AbstractVerticle {
         return vertx.createHttpServer(serverOptions);
     }
 
+    /**
+     * create default body handler of routes reading body
+     * @return body handler
+     */
+    protected BodyHandler createBodyHandler() {
+        BodyHandler bodyHandler;
+        if (serverOptions.uploadPath == null) {
+            bodyHandler = BodyHandler.create();
+        } else {
+            bodyHandler = BodyHandler.create(serverOptions.uploadPath);
+        }
+        if (serverOptions.bodyLimit > 0) bodyHandler.setBodyLimit(serverOptions.bodyLimit);
+        return bodyHandler.setDeleteUploadedFilesOnEnd(serverOptions.deleteUploadedFilesOnEnd).setMergeFormAttributes(serverOptions.mergeFormAttributes);
+    }
+
     protected void onInitServerRouter(HttpServer server, Router router) {
         restRouteMapper.addContextInstances(Router.class, router);
         restRouteMapper.addContextInstances(Vertx.class, vertx);
         restRouteMapper.addContextInstances(HttpServer.class, server);
         restRouteMapper.addContextInstances(io.vertx.core.Context.class, context);
+        restRouteMapper.setReflectionInvoke(serverOptions.reflectionInvoke);
+        restRouteMapper.setVirtualThreads(serverOptions.virtualThreads);
+        restRouteMapper.setStreamChunkSize(serverOptions.streamChunkSize);
+        serverOptions.workerPools.forEach((name, options) -> restRouteMapper.registerWorkerPool(
+                WorkerPool.create(vertx, name, options.poolSize, options.queueSize, options.maxExecuteTime)));
+        final ConcurrencyLimitOptions limit = serverOptions.concurrencyLimit;
+        if (limit != null) restRouteMapper.setConcurrencyLimiterFactory(() -> new ConcurrencyLimiter(limit.initialLimit, limit.minLimit, limit.maxLimit, limit.retryAfter));
+        if (serverOptions.prettyPrint) restRouteMapper.registerContext(Serializer.class, new JacksonSerializer(Json.prettyMapper, MediaType.APPLICATION_JSON, "utf-8"));
         restRouteMapper.applyTo(router, serverOptions.rootPath);
     }
 
@@ -154,6 +179,7 @@ public class SimpleRestServer extends AbstractVerticle {
     }
 
     protected String buildErrorMessage(Throwable e, Serializer serializer) {
+        if (e instanceof ParameterBindException) return serializer.serialize(e.getMessage());
         return serializer.serialize(Stream.of(e.getStackTrace()).map(element -> new StringBuilder()
                 .append(element.getLineNumber())
                 .append(':')
@@ -171,6 +197,13 @@ public class SimpleRestServer extends AbstractVerticle {
         public int bodyLimit = 0;
         public boolean deleteUploadedFilesOnEnd = true;
         public boolean mergeFormAttributes = false;
+        public boolean globalBodyHandler = false;
+        public boolean reflectionInvoke = false;
+        public boolean virtualThreads = false;
+        public int streamChunkSize = RestMapper.DEFAULT_STREAM_CHUNK_SIZE;
+        public boolean prettyPrint = false;
+        public Map<String, WorkerPoolOptions> workerPools = new LinkedHashMap<>();
+        public ConcurrencyLimitOptions concurrencyLimit = null;
 
         public Options() {
         }
@@ -182,6 +215,73 @@ public class SimpleRestServer extends AbstractVerticle {
             bodyLimit = jsonObject.getInteger("bodyLimit", bodyLimit);
             deleteUploadedFilesOnEnd = jsonObject.getBoolean("deleteUploadedFilesOnEnd", deleteUploadedFilesOnEnd);
             mergeFormAttributes = jsonObject.getBoolean("mergeFormAttributes", mergeFormAttributes);
+            globalBodyHandler = jsonObject.getBoolean("globalBodyHandler", globalBodyHandler);
+            reflectionInvoke = jsonObject.getBoolean("reflectionInvoke", reflectionInvoke);
+            virtualThreads = jsonObject.getBoolean("virtualThreads", virtualThreads);
+            streamChunkSize = jsonObject.getInteger("streamChunkSize", streamChunkSize);
+            prettyPrint = jsonObject.getBoolean("prettyPrint", prettyPrint);
+            JsonObject limit = jsonObject.getJsonObject("concurrencyLimit");
+            if (limit != null) concurrencyLimit = new ConcurrencyLimitOptions(limit);
+            JsonObject pools = jsonObject.getJsonObject("workerPools");
+            if (pools != null) pools.forEach(entry -> {
+                if (entry.getValue() instanceof JsonObject) workerPools.put(entry.getKey(), new WorkerPoolOptions((JsonObject) entry.getValue()));
+            });
+        }
+
+        /**
+         * declare worker pool of {@link Blocking#pool()} methods
+         * @param name           pool name
+         * @param poolSize       thread count
+         * @param queueSize      max waiting calls, 0 or less for unbounded
+         * @param maxExecuteTime max execute time in milliseconds
+         * @return this
+         */
+        public Options addWorkerPool(String name, int poolSize, int queueSize, long maxExecuteTime) {
+            final WorkerPoolOptions options = new WorkerPoolOptions();
+            options.poolSize = poolSize;
+            options.queueSize = queueSize;
+            options.maxExecuteTime = maxExecuteTime;
+            workerPools.put(name, options);
+            return this;
+        }
+
+    }
+
+    /**
+     * default {@link ConcurrencyLimit} of routes without limited methods
+     */
+    public static class ConcurrencyLimitOptions {
+
+        public int initialLimit = 20;
+        public int minLimit = 1;
+        public int maxLimit = 1000;
+        public int retryAfter = 1;
+
+        public ConcurrencyLimitOptions() {
+        }
+
+        public ConcurrencyLimitOptions(JsonObject jsonObject) {
+            initialLimit = jsonObject.getInteger("initialLimit", initialLimit);
+            minLimit = jsonObject.getInteger("minLimit", minLimit);
+            maxLimit = jsonObject.getInteger("maxLimit", maxLimit);
+            retryAfter = jsonObject.getInteger("retryAfter", retryAfter);
+        }
+
+    }
+
+    public static class WorkerPoolOptions {
+
+        public int poolSize = VertxOptions.DEFAULT_WORKER_POOL_SIZE;
+        public int queueSize = 0;
+        public long maxExecuteTime = TimeUnit.NANOSECONDS.toMillis(VertxOptions.DEFAULT_MAX_WORKER_EXECUTE_TIME);
+
+        public WorkerPoolOptions() {
+        }
+
+        public WorkerPoolOptions(JsonObject jsonObject) {
+            poolSize = jsonObject.getInteger("poolSize", poolSize);
+            queueSize = jsonObject.getInteger("queueSize", queueSize);
+            maxExecuteTime = jsonObject.getLong("maxExecuteTime", maxExecuteTime);
         }
 
     }
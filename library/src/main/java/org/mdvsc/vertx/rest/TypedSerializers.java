@@ -0,0 +1,39 @@
+package org.mdvsc.vertx.rest;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * {@link Serializer#forType(Class) Specialized serializers} of one declared type, one for each serializer in use.
+ * Resolved when routes are applied for the context serializer, other negotiated serializers on first use.
+ */
+final class TypedSerializers {
+
+    private final Class<?> type;
+    private volatile Map<Serializer, Serializer> serializers = Collections.emptyMap();
+
+    TypedSerializers(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * specialized serializer
+     * @param serializer serializer of request, nullable
+     * @return serializer specialized for type, null if serializer is null
+     */
+    Serializer get(Serializer serializer) {
+        if (serializer == null) return null;
+        final Map<Serializer, Serializer> current = serializers;
+        Serializer typed = current.get(serializer);
+        if (typed == null) {
+            typed = serializer.forType(type);
+            // copy on write, lookups stay lock free, a racing resolve only builds the same serializer twice
+            final Map<Serializer, Serializer> next = new IdentityHashMap<>(current);
+            next.put(serializer, typed);
+            serializers = next;
+        }
+        return typed;
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.mdvsc.vertx.rest;
+
+import org.mdvsc.vertx.utils.StringUtils;
+
+/**
+ * Converts one textual request value to a parameter type, resolved once per parameter.
+ * Values are given as ranges so split items are converted without copying them out first.
+ */
+interface ValueConverter {
+
+    ValueConverter STRING = (content, start, end, serializer) -> substring(content, start, end);
+
+    ValueConverter INTEGER = (content, start, end, serializer) -> {
+        Long l = parseLong(content, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return l == null ? StringUtils.INVALID_VALUE : (Object) l.intValue();
+    };
+
+    ValueConverter LONG = (content, start, end, serializer) -> {
+        Long l = parseLong(content, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+        return l == null ? StringUtils.INVALID_VALUE : l;
+    };
+
+    ValueConverter SHORT = (content, start, end, serializer) -> {
+        Long l = parseLong(content, start, end, Short.MIN_VALUE, Short.MAX_VALUE);
+        return l == null ? StringUtils.INVALID_VALUE : (Object) l.shortValue();
+    };
+
+    ValueConverter BYTE = (content, start, end, serializer) -> {
+        Long l = parseLong(content, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        return l == null ? StringUtils.INVALID_VALUE : (Object) l.byteValue();
+    };
+
+    ValueConverter FLOAT = (content, start, end, serializer) -> {
+        while (start < end && content.charAt(start) <= ' ') start++;
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        return StringUtils.isDecimal(content, start, end) ? (Object) Float.parseFloat(substring(content, start, end)) : StringUtils.INVALID_VALUE;
+    };
+
+    ValueConverter DOUBLE = (content, start, end, serializer) -> {
+        while (start < end && content.charAt(start) <= ' ') start++;
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        return StringUtils.isDecimal(content, start, end) ? (Object) Double.parseDouble(substring(content, start, end)) : StringUtils.INVALID_VALUE;
+    };
+
+    ValueConverter BOOLEAN = (content, start, end, serializer) -> isTrue(content, start, end);
+
+    /**
+     * convert content range
+     * @param content content, not null
+     * @param start range start, inclusive
+     * @param end range end, exclusive
+     * @param serializer serializer of current request, may be null
+     * @return value, null if no value, or {@link StringUtils#INVALID_VALUE} if malformed
+     */
+    Object convert(CharSequence content, int start, int end, Serializer serializer);
+
+    /**
+     * convert whole content
+     * @param content content, not null
+     * @param serializer serializer of current request, may be null
+     * @return value, null if no value, or {@link StringUtils#INVALID_VALUE} if malformed
+     */
+    default Object convert(String content, Serializer serializer) {
+        return convert(content, 0, content.length(), serializer);
+    }
+
+    /**
+     * resolve converter for target type
+     * @param target target type
+     * @param converters registered and built-in param converters, nullable
+     * @return converter
+     */
+    static ValueConverter forType(Class<?> target, ParamConverters converters) {
+        if (target == null || target == String.class) return STRING;
+        if (target == Integer.class || target == int.class) return INTEGER;
+        if (target == Long.class || target == long.class) return LONG;
+        if (target == Float.class || target == float.class) return FLOAT;
+        if (target == Double.class || target == double.class) return DOUBLE;
+        if (target == Short.class || target == short.class) return SHORT;
+        if (target == Byte.class || target == byte.class) return BYTE;
+        if (target == Boolean.class || target == boolean.class) return BOOLEAN;
+        final ParamConverter<?> registered = converters == null ? null : converters.findRegistered(target);
+        if (registered != null) return (content, start, end, serializer) -> {
+            try {
+                return registered.fromString(substring(content, start, end).trim());
+            } catch (RuntimeException e) {
+                return StringUtils.INVALID_VALUE;
+            }
+        };
+        final ParamConverter<?> builtIn = converters == null ? null : converters.findBuiltIn(target);
+        return (content, start, end, serializer) -> {
+            final String value = substring(content, start, end).trim();
+            // json text keeps going to serializer, as before built-in converters
+            final boolean isJson = !value.isEmpty() && (value.charAt(0) == '{' || value.charAt(0) == '[' || value.charAt(0) == '"');
+            try {
+                if (builtIn != null && !(isJson && serializer != null)) return builtIn.fromString(value);
+                return serializer == null ? null : serializer.deserialize(value, target);
+            } catch (RuntimeException e) {
+                return StringUtils.INVALID_VALUE;
+            }
+        };
+    }
+
+    /**
+     * test if values of type are only converted by serializer
+     * @param target target type
+     * @param converters registered and built-in param converters, nullable
+     * @return true if yes
+     */
+    static boolean isSerialized(Class<?> target, ParamConverters converters) {
+        if (target == null || target == String.class || target.isPrimitive()) return false;
+        if (target == Integer.class || target == Long.class || target == Float.class || target == Double.class
+                || target == Short.class || target == Byte.class || target == Boolean.class) return false;
+        return converters == null || converters.findRegistered(target) == null && converters.findBuiltIn(target) == null;
+    }
+
+    /**
+     * trim range and parse integer in it
+     */
+    static Long parseLong(CharSequence content, int start, int end, long min, long max) {
+        while (start < end && content.charAt(start) <= ' ') start++;
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        return StringUtils.tryParseLong(content, start, end, min, max);
+    }
+
+    /**
+     * trim range and test if it is "true" ignoring case, same as {@link Boolean#parseBoolean(String)}
+     */
+    static boolean isTrue(CharSequence content, int start, int end) {
+        while (start < end && content.charAt(start) <= ' ') start++;
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        return end - start == 4
+                && (content.charAt(start) | 0x20) == 't'
+                && (content.charAt(start + 1) | 0x20) == 'r'
+                && (content.charAt(start + 2) | 0x20) == 'u'
+                && (content.charAt(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * range as string, whole string content is returned as is
+     */
+    static String substring(CharSequence content, int start, int end) {
+        if (start == 0 && end == content.length() && content instanceof String) return (String) content;
+        return content.subSequence(start, end).toString();
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.mdvsc.vertx.rest;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread per task executor of {@link Blocking#virtual()} methods, looked up at runtime
+ * so the mapper still builds and runs on Java 8, where blocking methods fall back to worker pools.
+ */
+final class VirtualThreads {
+
+    private static final Executor EXECUTOR = createExecutor();
+
+    private VirtualThreads() {
+    }
+
+    private static Executor createExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null; // before Java 21, or preview not enabled
+        }
+    }
+
+    /**
+     * runtime supports virtual threads
+     * @return true if yes
+     */
+    static boolean isSupported() {
+        return EXECUTOR != null;
+    }
+
+    /**
+     * run task on a new virtual thread
+     * @param task task
+     */
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+}
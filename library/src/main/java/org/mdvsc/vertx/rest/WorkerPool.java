@@ -0,0 +1,144 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named worker pool of {@link Blocking#pool()} methods, a bulkhead keeping slow methods off other blocking methods.
+ * Calls beyond pool size wait in a bounded queue, calls beyond queue size are rejected and answered with 503.
+ */
+public class WorkerPool {
+
+    private final String name;
+    private final WorkerExecutor executor;
+    private final int poolSize;
+    private final int queueSize;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name      pool name
+     * @param executor  executor running calls
+     * @param poolSize  thread count of executor
+     * @param queueSize max waiting calls, 0 or less for unbounded
+     */
+    public WorkerPool(String name, WorkerExecutor executor, int poolSize, int queueSize) {
+        this.name = name;
+        this.executor = executor;
+        this.poolSize = poolSize;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * create pool over a vertx shared worker executor
+     * @param vertx          vertx
+     * @param name           pool name, shared with executors of same name
+     * @param poolSize       thread count
+     * @param queueSize      max waiting calls, 0 or less for unbounded
+     * @param maxExecuteTime max execute time in milliseconds before blocked thread warnings
+     * @return worker pool
+     */
+    public static WorkerPool create(Vertx vertx, String name, int poolSize, int queueSize, long maxExecuteTime) {
+        return new WorkerPool(name, vertx.createSharedWorkerExecutor(name, poolSize, maxExecuteTime, TimeUnit.MILLISECONDS), poolSize, queueSize);
+    }
+
+    /**
+     * run blocking code if queue has room
+     * @param blockingCodeHandler blocking code
+     * @param ordered             run in order of calling context
+     * @param resultHandler       result handler
+     * @param <T>                 result type
+     * @return false if queue is full and code is rejected
+     */
+    public <T> boolean executeBlocking(Handler<Future<T>> blockingCodeHandler, boolean ordered, Handler<AsyncResult<T>> resultHandler) {
+        if (queued.incrementAndGet() > queueSize && queueSize > 0) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        submit(blockingCodeHandler, ordered, resultHandler);
+        return true;
+    }
+
+    /**
+     * run blocking code continuing an admitted call, such as pulling its streamed result, which is never rejected
+     * since its response has started. It is still counted in queue depth and active count, so it holds back calls
+     * queued after it as any call would
+     * @param blockingCodeHandler blocking code
+     * @param ordered             run in order of calling context
+     * @param resultHandler       result handler
+     * @param <T>                 result type
+     */
+    public <T> void executeContinuation(Handler<Future<T>> blockingCodeHandler, boolean ordered, Handler<AsyncResult<T>> resultHandler) {
+        queued.incrementAndGet();
+        submit(blockingCodeHandler, ordered, resultHandler);
+    }
+
+    private <T> void submit(Handler<Future<T>> blockingCodeHandler, boolean ordered, Handler<AsyncResult<T>> resultHandler) {
+        executor.executeBlocking(future -> {
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                blockingCodeHandler.handle(future);
+            } finally {
+                active.decrementAndGet();
+            }
+        }, ordered, resultHandler);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public WorkerExecutor getExecutor() {
+        return executor;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * calls waiting for a thread
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * threads running calls
+     * @return active thread count
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * calls rejected by full queue
+     * @return rejected count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * close executor
+     */
+    public void close() {
+        executor.close();
+    }
+
+}
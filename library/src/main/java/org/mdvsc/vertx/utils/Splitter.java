@@ -0,0 +1,198 @@
+package org.mdvsc.vertx.utils;
+
+/**
+ * Compiled list separator with optional item start and end strings, such as "," with "[" and "]".
+ * Items are reported as ranges of the original content, nothing is copied while splitting.
+ */
+public final class Splitter {
+
+    /**
+     * receives item ranges
+     */
+    public interface RangeConsumer {
+
+        /**
+         * accept one item
+         * @param content whole content
+         * @param start item start index, inclusive
+         * @param end item end index, exclusive
+         * @return false to stop splitting
+         */
+        boolean accept(CharSequence content, int start, int end);
+
+    }
+
+    private final String separator;
+    private final String start;
+    private final String end;
+
+    /**
+     * compile splitter
+     * @param separator item separator, null or empty for no separator
+     * @param start item start string, nullable
+     * @param end item end string, nullable
+     */
+    public Splitter(String separator, String start, String end) {
+        this.separator = StringUtils.isNullOrEmpty(separator) ? null : separator;
+        this.start = StringUtils.isNullOrEmpty(start) ? null : start;
+        this.end = StringUtils.isNullOrEmpty(end) ? null : end;
+    }
+
+    public boolean hasSeparator() {
+        return separator != null;
+    }
+
+    /**
+     * start of range between item start and end string, same as {@link StringUtils#substringBetween(String, String, String)}
+     * @param content content
+     * @param from range start, inclusive
+     * @param to range end, exclusive
+     * @return start index
+     */
+    public int betweenStart(CharSequence content, int from, int to) {
+        if (start == null) return from;
+        int index = indexOf(content, start, from, to);
+        return index >= 0 ? index + start.length() : from;
+    }
+
+    /**
+     * end of range between item start and end string, range must start at {@link #betweenStart(CharSequence, int, int)}
+     * @param content content
+     * @param from range start, inclusive
+     * @param to range end, exclusive
+     * @return end index
+     */
+    public int betweenEnd(CharSequence content, int from, int to) {
+        if (end == null) return to;
+        int index = lastIndexOf(content, end, from, to);
+        return index > from ? index : to;
+    }
+
+    /**
+     * upper bound of items in range, for presizing arrays before splitting
+     * @param content content
+     * @param from range start, inclusive
+     * @param to range end, exclusive
+     * @return separator count plus one
+     */
+    public int count(CharSequence content, int from, int to) {
+        int count = 1;
+        if (separator != null) {
+            int index;
+            while ((index = indexOf(content, separator, from, to)) >= 0) {
+                count++;
+                from = index + separator.length();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * split range by separator, same as {@link StringUtils#split(String, String)}
+     * @param content content
+     * @param from range start, inclusive
+     * @param to range end, exclusive
+     * @param consumer item consumer
+     * @return false if consumer stopped splitting
+     */
+    public boolean split(CharSequence content, int from, int to, RangeConsumer consumer) {
+        if (separator != null) {
+            int index;
+            while ((index = indexOf(content, separator, from, to)) >= 0) {
+                if (!consumer.accept(content, from, index)) return false;
+                from = index + separator.length();
+            }
+        }
+        return from >= to || consumer.accept(content, from, to);
+    }
+
+    /**
+     * Split range into array items. When the trimmed range is wrapped by item start and end strings,
+     * items are split at "end separator start" with blanks allowed around separator, and every item
+     * keeps its own start and end strings.
+     * @param content content
+     * @param from range start, inclusive
+     * @param to range end, exclusive
+     * @param consumer item consumer
+     * @return false if consumer stopped splitting
+     */
+    public boolean splitItems(CharSequence content, int from, int to, RangeConsumer consumer) {
+        int trimFrom = from, trimTo = to;
+        while (trimFrom < trimTo && content.charAt(trimFrom) <= ' ') trimFrom++;
+        while (trimTo > trimFrom && content.charAt(trimTo - 1) <= ' ') trimTo--;
+        final boolean wrapStart = start != null && startsWith(content, start, trimFrom, trimTo);
+        final boolean wrapEnd = end != null && endsWith(content, end, trimFrom, trimTo);
+        if (separator == null || start != null && !wrapStart || end != null && !wrapEnd || start == null && end == null) {
+            return split(content, from, to, consumer);
+        }
+        int itemStart = from;
+        int position = from;
+        while (position < to) {
+            int matchEnd = matchDelimiter(content, position, to);
+            if (matchEnd < 0) {
+                position++;
+                continue;
+            }
+            int itemEnd = end != null ? position + end.length() : position;
+            if (!consumer.accept(content, itemStart, itemEnd)) return false;
+            itemStart = start != null ? matchEnd - start.length() : matchEnd;
+            position = matchEnd;
+        }
+        return itemStart >= to || consumer.accept(content, itemStart, to);
+    }
+
+    /**
+     * match "end blanks separator blanks start" at position, blanks only next to present start or end
+     * @return match end index or -1
+     */
+    private int matchDelimiter(CharSequence content, int position, int to) {
+        if (end != null) {
+            if (!startsWith(content, end, position, to)) return -1;
+            position += end.length();
+            while (position < to && isBlank(content.charAt(position))) position++;
+        }
+        if (!startsWith(content, separator, position, to)) return -1;
+        position += separator.length();
+        if (start != null) {
+            while (position < to && isBlank(content.charAt(position))) position++;
+            if (!startsWith(content, start, position, to)) return -1;
+            position += start.length();
+        }
+        return position;
+    }
+
+    private static boolean isBlank(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0B || ch == '\f' || ch == '\r';
+    }
+
+    private static boolean startsWith(CharSequence content, String text, int from, int to) {
+        if (to - from < text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (content.charAt(from + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean endsWith(CharSequence content, String text, int from, int to) {
+        return to - from >= text.length() && startsWith(content, text, to - text.length(), to);
+    }
+
+    private static int indexOf(CharSequence content, String text, int from, int to) {
+        if (content instanceof String) {
+            int index = ((String) content).indexOf(text, from);
+            return index >= 0 && index + text.length() <= to ? index : -1;
+        }
+        for (int i = from, last = to - text.length(); i <= last; i++) {
+            if (startsWith(content, text, i, to)) return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(CharSequence content, String text, int from, int to) {
+        for (int i = to - text.length(); i >= from; i--) {
+            if (startsWith(content, text, i, to)) return i;
+        }
+        return -1;
+    }
+
+}
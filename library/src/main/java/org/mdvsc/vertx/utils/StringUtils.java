@@ -4,10 +4,8 @@ import org.mdvsc.vertx.rest.Serializer;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * @author Home
@@ -15,6 +13,16 @@ import java.util.stream.Collectors;
  */
 public class StringUtils {
 
+    /**
+     * returned by exception free converters when content can not be converted to target class
+     */
+    public static final Object INVALID_VALUE = new Object() {
+        @Override
+        public String toString() {
+            return "INVALID_VALUE";
+        }
+    };
+
     /**
      * is string null or blank
      * @param text text to test
@@ -41,12 +49,13 @@ public class StringUtils {
      */
     public static List<String> split(String content, String separator) {
         List<String> list = new ArrayList<>();
+        int from = 0;
         int separatorPos;
-        while ((separatorPos = content.indexOf(separator)) >= 0) {
-            list.add(content.substring(0, separatorPos));
-            content = content.substring(separatorPos + separator.length());
+        while ((separatorPos = content.indexOf(separator, from)) >= 0) {
+            list.add(content.substring(from, separatorPos));
+            from = separatorPos + separator.length();
         }
-        if (!content.isEmpty()) list.add(content);
+        if (from < content.length()) list.add(content.substring(from));
         return list;
     }
 
@@ -97,6 +106,103 @@ public class StringUtils {
         return (T)value;
     }
 
+    /**
+     * parse decimal integer in content range
+     * @param content text content
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @param min min accepted value
+     * @param max max accepted value
+     * @return value or null if range is not an integer between min and max
+     */
+    public static Long tryParseLong(CharSequence content, int start, int end, long min, long max) {
+        long value = parseLong(content, start, end, min, max, 0L);
+        return value != 0L || min <= 0L && max >= 0L && isZero(content, start, end) ? (Long) value : null;
+    }
+
+    /**
+     * parse decimal integer in content range without boxing
+     * @param content text content
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @param min min accepted value
+     * @param max max accepted value
+     * @param invalid value returned if range is not an integer between min and max
+     * @return value or invalid
+     */
+    public static long parseLong(CharSequence content, int start, int end, long min, long max, long invalid) {
+        if (start >= end) return invalid;
+        boolean negative = false;
+        char first = content.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++start == end) return invalid;
+        }
+        // accumulate negatively, Long.MIN_VALUE has no positive counterpart
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multiplyLimit = limit / 10;
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(content.charAt(i), 10);
+            if (digit < 0 || result < multiplyLimit) return invalid;
+            result *= 10;
+            if (result < limit + digit) return invalid;
+            result -= digit;
+        }
+        result = negative ? result : -result;
+        return result < min || result > max ? invalid : result;
+    }
+
+    private static boolean isZero(CharSequence content, int start, int end) {
+        if (start < end && (content.charAt(start) == '-' || content.charAt(start) == '+')) start++;
+        if (start >= end) return false;
+        while (start < end) if (content.charAt(start++) != '0') return false;
+        return true;
+    }
+
+    /**
+     * test if content range is a decimal number accepted by {@link Double#parseDouble(String)}
+     * @param content text content
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @return true if yes
+     */
+    public static boolean isDecimal(CharSequence content, int start, int end) {
+        if (start < end && (content.charAt(start) == '-' || content.charAt(start) == '+')) start++;
+        if (start >= end) return false;
+        if (regionMatches(content, start, end, "NaN") || regionMatches(content, start, end, "Infinity")) return true;
+        char last = content.charAt(end - 1);
+        if (last == 'f' || last == 'F' || last == 'd' || last == 'D') end--;
+        int digits = 0;
+        int i = start;
+        while (i < end && isAsciiDigit(content.charAt(i))) { i++; digits++; }
+        if (i < end && content.charAt(i) == '.') {
+            i++;
+            while (i < end && isAsciiDigit(content.charAt(i))) { i++; digits++; }
+        }
+        if (digits == 0) return false;
+        if (i < end && (content.charAt(i) == 'e' || content.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (content.charAt(i) == '-' || content.charAt(i) == '+')) i++;
+            int exponentDigits = 0;
+            while (i < end && isAsciiDigit(content.charAt(i))) { i++; exponentDigits++; }
+            if (exponentDigits == 0) return false;
+        }
+        return i == end;
+    }
+
+    private static boolean isAsciiDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean regionMatches(CharSequence content, int start, int end, String text) {
+        if (end - start != text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (content.charAt(start + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
     /**
      * translate string content to target.
      * @param content content in string
@@ -135,7 +241,6 @@ public class StringUtils {
         return (T)value;
     }
 
-
     /**
      * translate string content to target.
      * @param content content in string
@@ -169,48 +274,24 @@ public class StringUtils {
         return content;
     }
 
-    private static <T> Collection<T> parseStringCollectionValue(String content, Class<T> element, String separator, String start, String end, Serializer serializer) {
-        return split(content, separator)
-                .stream()
-                .map(s -> substringBetween(s, start, end))
-                .map(s -> parseStringValue(s, element, serializer))
-                .collect(Collectors.toList());
+    private static List<Object> parseStringCollectionValue(String content, Class<?> element, String separator, String start, String end, Serializer serializer) {
+        List<String> items = split(content, separator);
+        List<Object> list = new ArrayList<>(items.size());
+        for (String item : items) list.add(parseStringValue(substringBetween(item, start, end), element, serializer));
+        return list;
     }
 
     private static Object parseStringArrayValue(String content, Class target, Class element, String separator, String start, String end, Serializer serializer) {
-        Class<?> component = target.getComponentType();
-        String trimContent = content.trim();
-        List<String> r;
-        if (start != null && end != null && trimContent.startsWith(start) && trimContent.endsWith(end)) {
-            String[] st = content.split("\\Q" + end + "\\E\\s*\\Q" + separator + "\\E\\s*\\Q" + start + "\\E");
-            r = new ArrayList<>(st.length);
-            for (int i = 0; i < st.length; i++) {
-                String s = st[i];
-                if (i > 0) s = start + s;
-                if (i < st.length - 1) s += end;
-                r.add(s);
-            }
-        } else if (start != null && end == null && trimContent.startsWith(start)) {
-            String[] st = content.split("\\Q" + separator + "\\E\\s*\\Q" + start + "\\E");
-            r = new ArrayList<>(st.length);
-            for (int i = 0; i < st.length; i++) {
-                String s = st[i];
-                if (i > 0) s = start + s;
-                r.add(s);
-            }
-        } else if (start == null && end != null && trimContent.endsWith(end)) {
-            String[] st = content.split("\\Q" + end + "\\E\\s*\\Q" + separator + "\\E");
-            r = new ArrayList<>(st.length);
-            for (int i = 0; i < st.length; i++) {
-                String s = st[i];
-                if (i < st.length - 1) s += end;
-                r.add(s);
-            }
-        } else r = split(content, separator);
-        int size = r.size();
+        final Class<?> component = target.getComponentType();
+        final List<Object> items = new ArrayList<>();
+        new Splitter(separator, start, end).splitItems(content, 0, content.length(), (text, from, to) -> {
+            items.add(transObject(text.subSequence(from, to).toString(), null, component, element, separator, start, end, serializer));
+            return true;
+        });
+        int size = items.size();
         Object value = Array.newInstance(component, size);
         for (int i = 0; i < size; i++) {
-            Array.set(value, i, transObject(r.get(i), null, component, element, separator, start, end, serializer));
+            Array.set(value, i, items.get(i));
         }
         return value;
     }
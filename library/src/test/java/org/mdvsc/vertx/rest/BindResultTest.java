@@ -0,0 +1,50 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BindResultTest {
+
+    @URL("bind")
+    public static class BindResource {
+
+        @GET
+        public Object header(@Header("X-Count") int count) {
+            return count;
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new BindResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void boundValueIsPassed() throws Exception {
+        assertEquals("3", server.get("/bind", "X-Count", "3").body());
+    }
+
+    @Test
+    public void missingValueLeavesRouteToNextHandler() throws Exception {
+        assertEquals(404, server.get("/bind").status);
+    }
+
+    @Test
+    public void invalidValueIsBadRequestNamingParameter() throws Exception {
+        final TestServer.Response response = server.get("/bind", "X-Count", "three");
+        assertEquals(400, response.status);
+        assertEquals("\"parameter X-Count is not a valid int\"", response.body());
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BlockingCallTest {
+
+    @URL("blocking")
+    public static class BlockingResource {
+
+        @GET
+        @URL("ok")
+        @Blocking
+        public Object ok(@Query("n") int n) {
+            return Thread.currentThread().getName().startsWith("vert.x-eventloop") ? -1 : n;
+        }
+
+        @GET
+        @URL("fail")
+        @Blocking
+        public Object fail() {
+            throw new IllegalStateException("fail");
+        }
+
+        @GET
+        @URL("error")
+        @Blocking
+        public Object error() {
+            throw new AssertionError("error");
+        }
+
+        @GET
+        @URL("ordered")
+        @Blocking(true)
+        public Object ordered(@Query(value = "fail", defaultValue = "false") boolean fail) {
+            if (fail) throw new IllegalStateException("ordered");
+            return "ordered";
+        }
+
+        @GET
+        @URL("keyed")
+        @Blocking(orderBy = "id")
+        public Object keyed(@Query("id") String id, @Query(value = "fail", defaultValue = "false") boolean fail) {
+            if (fail) throw new IllegalStateException("keyed");
+            return id;
+        }
+
+        @GET
+        @URL("versioned")
+        @Blocking
+        @ETag(version = "version")
+        public Object versioned() {
+            return "versioned";
+        }
+
+        public Object version() {
+            throw new IllegalStateException("version");
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new BlockingResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void resultIsWrittenAfterInvokingOffEventLoop() throws Exception {
+        for (int i = 0; i < 20; i++) assertEquals(String.valueOf(i), server.get("/blocking/ok?n=" + i).body());
+    }
+
+    @Test
+    public void thrownExceptionOrErrorFailsCall() throws Exception {
+        assertEquals(500, server.get("/blocking/fail").status);
+        assertEquals(500, server.get("/blocking/error").status);
+        assertEquals("1", server.get("/blocking/ok?n=1").body());
+    }
+
+    @Test
+    public void failedOrderedCallLeavesLaterCallsRunning() throws Exception {
+        assertEquals(500, server.get("/blocking/ordered?fail=true").status);
+        assertEquals("\"ordered\"", server.get("/blocking/ordered").body());
+        assertEquals(500, server.get("/blocking/keyed?id=a&fail=true").status);
+        assertEquals("\"a\"", server.get("/blocking/keyed?id=a").body());
+    }
+
+    @Test
+    public void failedVersionFailsCall() throws Exception {
+        assertEquals(500, server.get("/blocking/versioned").status);
+    }
+
+}
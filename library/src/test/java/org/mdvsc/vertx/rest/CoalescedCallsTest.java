@@ -0,0 +1,119 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CoalescedCallsTest {
+
+    private static final long WAIT_TIMEOUT = 300;
+
+    private static final AtomicInteger calls = new AtomicInteger();
+    private static volatile CountDownLatch entered;
+    private static volatile CountDownLatch release;
+
+    @URL("coalesce")
+    public static class CoalesceResource {
+
+        /**
+         * first call blocks until released
+         */
+        private static Object call(String key) throws InterruptedException {
+            final int call = calls.incrementAndGet();
+            if (call == 1) {
+                entered.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return key + call;
+        }
+
+        @GET
+        @URL("bounded")
+        @Blocking
+        @Coalesce(timeout = WAIT_TIMEOUT)
+        public Object bounded(@Query("k") String key) throws InterruptedException {
+            return call(key);
+        }
+
+        @GET
+        @URL("unbounded")
+        @Blocking
+        @Coalesce(timeout = 0)
+        public Object unbounded(@Query("k") String key) throws InterruptedException {
+            return call(key);
+        }
+
+    }
+
+    private TestServer server;
+
+    @Before
+    public void start() throws Exception {
+        calls.set(0);
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        server = TestServer.start(new CoalesceResource());
+    }
+
+    @After
+    public void stop() throws Exception {
+        release.countDown();
+        server.close();
+    }
+
+    private CompletableFuture<TestServer.Response> lead(String uri) throws Exception {
+        final CompletableFuture<TestServer.Response> leader = server.send(HttpMethod.GET, uri, null);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    @Test
+    public void waitersShareResultOfLeader() throws Exception {
+        final CompletableFuture<TestServer.Response> leader = lead("/coalesce/unbounded?k=a");
+        final List<CompletableFuture<TestServer.Response>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) waiters.add(server.send(HttpMethod.GET, "/coalesce/unbounded?k=a", null));
+        Thread.sleep(100);
+        release.countDown();
+        assertEquals("\"a1\"", TestServer.await(leader).body());
+        for (CompletableFuture<TestServer.Response> waiter : waiters) assertEquals("\"a1\"", TestServer.await(waiter).body());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void waiterCallsItselfAfterTimeout() throws Exception {
+        final CompletableFuture<TestServer.Response> leader = lead("/coalesce/bounded?k=b");
+        final long start = System.nanoTime();
+        assertEquals("\"b2\"", server.get("/coalesce/bounded?k=b").body());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= WAIT_TIMEOUT);
+        assertFalse(leader.isDone());
+        // timed out flight is removed, next request leads a new one without waiting
+        final long next = System.nanoTime();
+        assertEquals("\"b3\"", server.get("/coalesce/bounded?k=b").body());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - next) < WAIT_TIMEOUT);
+        release.countDown();
+        assertEquals("\"b1\"", TestServer.await(leader).body());
+    }
+
+    @Test
+    public void closedLeaderResponseRemovesFlight() throws Exception {
+        final HttpClient client = server.vertx.createHttpClient();
+        client.get(server.port, "localhost", "/coalesce/unbounded?k=c", response -> { }).exceptionHandler(e -> { }).end();
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        client.close();
+        Thread.sleep(100);
+        // leader is still stuck, next request leads a new flight instead of waiting without bound
+        assertEquals("\"c2\"", server.get("/coalesce/unbounded?k=c").body());
+    }
+
+}
@@ -0,0 +1,224 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static volatile CountDownLatch release = new CountDownLatch(0);
+    private static final AtomicInteger ownEnded = new AtomicInteger();
+    private static final AtomicInteger pendingCalls = new AtomicInteger();
+
+    @URL("limited")
+    public static class LimitedResource {
+
+        @GET
+        @URL("slow")
+        @ConcurrencyLimit(initialLimit = 1, minLimit = 1, maxLimit = 1)
+        @Blocking
+        public Object slow() throws InterruptedException {
+            release.await(10, TimeUnit.SECONDS);
+            return "slow";
+        }
+
+        @GET
+        @URL("plain")
+        @ConcurrencyLimit(initialLimit = 1, minLimit = 1, maxLimit = 100)
+        public Object plain() {
+            return "plain";
+        }
+
+        @GET
+        @URL("cached")
+        @ConcurrencyLimit(initialLimit = 1, minLimit = 1, maxLimit = 100)
+        @Cacheable
+        public Object cached() {
+            return "cached";
+        }
+
+        @GET
+        @URL("missing")
+        @ConcurrencyLimit(initialLimit = 1, minLimit = 1, maxLimit = 100)
+        public Object missing(@Context HttpServerResponse response) {
+            response.setStatusCode(404);
+            return "none";
+        }
+
+        @GET
+        @URL("own")
+        @ConcurrencyLimit(initialLimit = 1, minLimit = 1, maxLimit = 1)
+        public Object own(@Context HttpServerResponse response) {
+            response.endHandler(v -> ownEnded.incrementAndGet());
+            return "own";
+        }
+
+        @GET
+        @URL("pending")
+        @ConcurrencyLimit(initialLimit = 1, minLimit = 1, maxLimit = 1)
+        public CompletableFuture<String> pending() {
+            pendingCalls.incrementAndGet();
+            return new CompletableFuture<>();
+        }
+
+    }
+
+    /**
+     * sample a latency with limit in use
+     */
+    private static void busy(ConcurrencyLimiter limiter, long latency) {
+        limiter.sample(latency, limiter.getLimit(), false);
+    }
+
+    @Test
+    public void limitGrowsWhileLatencyStaysNearBaseline() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100, 1);
+        for (int i = 0; i < 50; i++) busy(limiter, 10 * MS);
+        assertTrue(limiter.getLimit() > 20);
+        assertTrue(limiter.getLimit() <= 100);
+    }
+
+    @Test
+    public void idleLimitIsLeftAlone() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100, 1);
+        for (int i = 0; i < 50; i++) limiter.sample(10 * MS, 1, false);
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void singleFastResponseKeepsBaseline() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 1, 1000, 1);
+        for (int i = 0; i < 200; i++) busy(limiter, 10 * MS);
+        busy(limiter, MS / 10);
+        final int limit = limiter.getLimit();
+        // a min latency baseline would take every later response as five times too slow
+        for (int i = 0; i < 20; i++) busy(limiter, 10 * MS);
+        assertTrue(limiter.getLimit() >= limit);
+    }
+
+    @Test
+    public void limitFollowsMixedLatencies() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 5, 200, 1);
+        final Random random = new Random(1);
+        // jitter between 5 and 15ms is normal load, limit climbs to its bound
+        for (int i = 0; i < 500; i++) busy(limiter, (5 + random.nextInt(11)) * MS);
+        assertEquals(200, limiter.getLimit());
+
+        // latency quadruples for good, limit backs off towards its floor
+        for (int i = 0; i < 30; i++) busy(limiter, (40 + random.nextInt(21)) * MS);
+        final int overloaded = limiter.getLimit();
+        assertTrue("limit " + overloaded, overloaded < 40);
+        assertTrue(overloaded >= 5);
+
+        // rare spikes among normal latency do not hold it down
+        for (int i = 0; i < 500; i++) busy(limiter, (i % 50 == 0 ? 100 : 5 + random.nextInt(11)) * MS);
+        assertTrue(limiter.getLimit() > overloaded * 2);
+    }
+
+    @Test
+    public void droppedRequestShrinksLimitByTenth() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(100, 1, 100, 1);
+        limiter.sample(MS, 1, true);
+        assertEquals(90, limiter.getLimit());
+        for (int i = 0; i < 100; i++) limiter.sample(MS, 1, true);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void limitIsNeverExceededAndRejectionsAreCounted() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 3);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedCount());
+        limiter.cancel();
+        assertEquals(1, limiter.getInFlight());
+        assertEquals("3", limiter.getRetryAfter());
+    }
+
+    private static ConcurrencyLimiter limiter(TestServer server, String method) {
+        for (Map.Entry<Method, ConcurrencyLimiter> entry : server.mapper.getConcurrencyLimiters().entrySet()) {
+            if (entry.getKey().getName().equals(method)) return entry.getValue();
+        }
+        throw new AssertionError(method);
+    }
+
+    @Test
+    public void requestsBeyondLimitAreShedAndSkippedWorkIsNotSampled() throws Exception {
+        try (TestServer server = TestServer.start(new LimitedResource())) {
+            release = new CountDownLatch(1);
+            final CompletableFuture<TestServer.Response> admitted = server.send(HttpMethod.GET, "/limited/slow", null);
+            final ConcurrencyLimiter slow = limiter(server, "slow");
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (slow.getInFlight() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            final TestServer.Response shed = server.get("/limited/slow");
+            assertEquals(503, shed.status);
+            assertEquals("1", shed.header("Retry-After"));
+            release.countDown();
+            assertEquals("\"slow\"", TestServer.await(admitted).body());
+
+            // sequential requests use a limit of one, each sample grows it
+            final ConcurrencyLimiter plain = limiter(server, "plain");
+            for (int i = 0; i < 20; i++) assertEquals("\"plain\"", server.get("/limited/plain").body());
+            assertTrue(plain.getLimit() > 1);
+
+            final ConcurrencyLimiter cached = limiter(server, "cached");
+            for (int i = 0; i < 20; i++) assertEquals("\"cached\"", server.get("/limited/cached").body());
+            assertEquals(1, cached.getLimit());
+            assertEquals(0, cached.getInFlight());
+
+            final ConcurrencyLimiter missing = limiter(server, "missing");
+            for (int i = 0; i < 20; i++) assertEquals(404, server.get("/limited/missing").status);
+            assertEquals(1, missing.getLimit());
+            assertEquals(0, missing.getInFlight());
+        }
+    }
+
+    @Test
+    public void endHandlerOfMethodDoesNotHoldPermit() throws Exception {
+        try (TestServer server = TestServer.start(new LimitedResource())) {
+            final int before = ownEnded.get();
+            for (int i = 0; i < 5; i++) assertEquals("\"own\"", server.get("/limited/own").body());
+            awaitUntil(() -> ownEnded.get() == before + 5);
+            assertEquals(0, limiter(server, "own").getInFlight());
+        }
+    }
+
+    @Test
+    public void closedResponseReleasesPermit() throws Exception {
+        try (TestServer server = TestServer.start(new LimitedResource())) {
+            final ConcurrencyLimiter pending = limiter(server, "pending");
+            final int before = pendingCalls.get();
+            final HttpClientRequest request = server.vertx.createHttpClient().get(server.port, "localhost", "/limited/pending", response -> { });
+            request.exceptionHandler(e -> { });
+            request.end();
+            awaitUntil(() -> pendingCalls.get() > before);
+            assertEquals(1, pending.getInFlight());
+            request.connection().close();
+            awaitUntil(() -> pending.getInFlight() == 0);
+            assertEquals(0, pending.getInFlight());
+            assertEquals(1, pending.getLimit());
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.FileUpload;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FileUploadBinderTest {
+
+    private static final String BOUNDARY = "upload-boundary";
+
+    @URL("upload")
+    public static class UploadResource {
+
+        @POST
+        @URL("files")
+        public Object files(@File("a") FileUpload a, @File("b") List<FileUpload> b, @File("c") FileUpload[] c) {
+            return a.fileName() + "|" + b.size() + "|" + c.length;
+        }
+
+        @POST
+        @URL("map")
+        public Object map(@FileMap Map<String, FileUpload> files) {
+            final StringBuilder builder = new StringBuilder();
+            new TreeMap<>(files).forEach((name, file) -> builder.append(name).append('=').append(file.fileName()).append(';'));
+            return builder.toString();
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new UploadResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    /**
+     * @param files field names and file names in turn
+     */
+    private static Buffer multipart(String... files) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i + 1 < files.length; i += 2) {
+            builder.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(files[i])
+                    .append("\"; filename=\"").append(files[i + 1]).append("\"\r\n")
+                    .append("Content-Type: text/plain\r\n\r\n")
+                    .append("content of ").append(files[i + 1]).append("\r\n");
+        }
+        builder.append("--").append(BOUNDARY).append("--\r\n");
+        return Buffer.buffer(builder.toString());
+    }
+
+    private static TestServer.Response upload(String uri, String... files) throws Exception {
+        return server.post(uri, multipart(files), "Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+    }
+
+    @Test
+    public void bindsUploadsByFieldName() throws Exception {
+        assertEquals("\"a.txt|2|1\"", upload("/upload/files", "b", "b1.txt", "a", "a.txt", "b", "b2.txt", "c", "c.txt").body());
+        assertEquals("\"a.txt|0|0\"", upload("/upload/files", "a", "a.txt").body());
+    }
+
+    @Test
+    public void missingSingleUploadIsNotFound() throws Exception {
+        assertEquals(404, upload("/upload/files", "b", "b.txt").status);
+    }
+
+    @Test
+    public void fileMapKeepsOneUploadOfField() throws Exception {
+        // uploads of routing context are an unordered set, any upload of field may win
+        final String body = upload("/upload/map", "a", "a1.txt", "b", "b.txt", "a", "a2.txt").body();
+        assertTrue(body, body.equals("\"a=a1.txt;b=b.txt;\"") || body.equals("\"a=a2.txt;b=b.txt;\""));
+    }
+
+}
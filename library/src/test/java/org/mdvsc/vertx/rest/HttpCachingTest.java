@@ -0,0 +1,147 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Context;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HttpCachingTest {
+
+    private static final AtomicInteger calls = new AtomicInteger();
+    private static final AtomicBoolean versionOnEventLoop = new AtomicBoolean();
+
+    @URL("tagged")
+    public static class TaggedResource {
+
+        public Object version(@Query("id") int id) {
+            if (Context.isOnEventLoopThread()) versionOnEventLoop.set(true);
+            if (id < 0) throw new IllegalStateException("no version");
+            return id == 0 ? null : "v" + id;
+        }
+
+        @GET
+        @URL("plain")
+        @ETag(version = "version")
+        public Object plain(@Query("id") int id) {
+            calls.incrementAndGet();
+            return "item" + id;
+        }
+
+        @GET
+        @URL("blocking")
+        @Blocking
+        @ETag(version = "version")
+        public Object blocking(@Query("id") int id) {
+            calls.incrementAndGet();
+            return "item" + id;
+        }
+
+        @GET
+        @URL("cached")
+        @Blocking
+        @Cacheable
+        @ETag(version = "version", weak = true)
+        public Object cached(@Query("id") int id) {
+            calls.incrementAndGet();
+            return "item" + id;
+        }
+
+        @GET
+        @URL("hashed")
+        @ETag
+        @CacheControl(maxAge = 10)
+        public Object hashed() {
+            return "content";
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new TaggedResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Before
+    public void reset() {
+        calls.set(0);
+        versionOnEventLoop.set(false);
+    }
+
+    private static void assertRevalidates(String uri, String tag) throws Exception {
+        final TestServer.Response response = server.get(uri);
+        assertEquals(200, response.status);
+        assertEquals(tag, response.header("ETag"));
+        assertEquals(1, calls.get());
+        final TestServer.Response notModified = server.get(uri, "If-None-Match", tag);
+        assertEquals(304, notModified.status);
+        assertEquals(tag, notModified.header("ETag"));
+        assertEquals(0, notModified.body.length());
+        assertEquals(1, calls.get());
+        assertEquals(200, server.get(uri, "If-None-Match", "\"other\"").status);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void versionTagSkipsCall() throws Exception {
+        final String tag = server.get("/tagged/plain?id=1").header("ETag");
+        calls.set(0);
+        assertRevalidates("/tagged/plain?id=1", tag);
+    }
+
+    @Test
+    public void versionOfBlockingMethodIsCheckedOffEventLoop() throws Exception {
+        final String tag = server.get("/tagged/blocking?id=2").header("ETag");
+        calls.set(0);
+        assertRevalidates("/tagged/blocking?id=2", tag);
+        assertFalse(versionOnEventLoop.get());
+    }
+
+    @Test
+    public void versionOfCachedBlockingMethodIsCheckedOffEventLoop() throws Exception {
+        final TestServer.Response response = server.get("/tagged/cached?id=3");
+        assertEquals("\"item3\"", response.body());
+        final String tag = response.header("ETag");
+        assertTrue(tag, tag.startsWith("W/"));
+        assertEquals(304, server.get("/tagged/cached?id=3", "If-None-Match", tag).status);
+        assertEquals("\"item3\"", server.get("/tagged/cached?id=3").body());
+        assertEquals(1, calls.get());
+        assertFalse(versionOnEventLoop.get());
+    }
+
+    @Test
+    public void failingVersionFailsRequest() throws Exception {
+        assertEquals(500, server.get("/tagged/blocking?id=-1").status);
+        assertEquals(500, server.get("/tagged/cached?id=-1").status);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void nullVersionHashesBody() throws Exception {
+        assertNotNull(server.get("/tagged/blocking?id=0").header("ETag"));
+    }
+
+    @Test
+    public void hashedTagRevalidatesWithCacheControl() throws Exception {
+        final TestServer.Response response = server.get("/tagged/hashed");
+        final String tag = response.header("ETag");
+        assertNotNull(tag);
+        assertEquals("max-age=10", response.header("Cache-Control"));
+        final TestServer.Response notModified = server.get("/tagged/hashed", "If-None-Match", tag);
+        assertEquals(304, notModified.status);
+        assertEquals("max-age=10", notModified.header("Cache-Control"));
+    }
+
+}
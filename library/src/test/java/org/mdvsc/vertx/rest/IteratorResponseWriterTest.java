@@ -0,0 +1,147 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.Context;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class IteratorResponseWriterTest {
+
+    private static final int ITEMS = 1000;
+    private static final AtomicBoolean pulledOnEventLoop = new AtomicBoolean();
+    private static final AtomicInteger closed = new AtomicInteger();
+
+    /**
+     * lazy source recording threads pulling it
+     */
+    private static Iterator<Integer> lazy(int size, int failAt) {
+        return new Iterator<Integer>() {
+
+            int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (Context.isOnEventLoopThread()) pulledOnEventLoop.set(true);
+                return next < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (Context.isOnEventLoopThread()) pulledOnEventLoop.set(true);
+                if (next == failAt) throw new IllegalStateException("source failed");
+                return next++;
+            }
+
+        };
+    }
+
+    @URL("iterate")
+    public static class IterateResource {
+
+        @GET
+        @URL("stream")
+        public Stream<Integer> stream() {
+            return IntStream.range(0, ITEMS).boxed().onClose(closed::incrementAndGet);
+        }
+
+        @GET
+        @URL("iterable")
+        public Iterable<String> iterable() {
+            return () -> Stream.of("a", "b").iterator();
+        }
+
+        @GET
+        @URL("blocking")
+        @Blocking
+        public Stream<Integer> blocking() {
+            final Iterator<Integer> source = lazy(ITEMS, -1);
+            return Stream.generate(source::next).limit(ITEMS).onClose(closed::incrementAndGet);
+        }
+
+        @GET
+        @URL("pool")
+        @Blocking(pool = "items")
+        public Iterator<Integer> pool() {
+            return lazy(ITEMS, -1);
+        }
+
+        @GET
+        @URL("failFirst")
+        @Blocking
+        public Iterator<Integer> failFirst() {
+            return lazy(ITEMS, 0);
+        }
+
+        @GET
+        @URL("empty")
+        @Blocking
+        public Iterator<Integer> empty() {
+            return lazy(0, -1);
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        final SimpleRestServer.Options options = new SimpleRestServer.Options().addWorkerPool("items", 2, 1, 60000);
+        options.streamChunkSize = 64;
+        server = TestServer.start(options, null, new IterateResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Before
+    public void reset() {
+        pulledOnEventLoop.set(false);
+        closed.set(0);
+    }
+
+    private static void assertItems(TestServer.Response response) {
+        assertEquals(200, response.status);
+        assertEquals("chunked", response.header("Transfer-Encoding"));
+        final String[] items = response.body().substring(1, response.body().length() - 1).split(",");
+        assertEquals(ITEMS, items.length);
+        for (int i = 0; i < ITEMS; i++) assertEquals(String.valueOf(i), items[i]);
+    }
+
+    @Test
+    public void writesStreamInChunksAndClosesIt() throws Exception {
+        assertItems(server.get("/iterate/stream"));
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void writesDeclaredIterable() throws Exception {
+        assertEquals("[\"a\",\"b\"]", server.get("/iterate/iterable").body());
+    }
+
+    @Test
+    public void blockingResultIsPulledOffEventLoop() throws Exception {
+        assertItems(server.get("/iterate/blocking"));
+        assertItems(server.get("/iterate/pool"));
+        assertFalse(pulledOnEventLoop.get());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void blockingResultEmptyOrFailingFirst() throws Exception {
+        assertEquals("[]", server.get("/iterate/empty").body());
+        assertEquals(500, server.get("/iterate/failFirst").status);
+        assertFalse(pulledOnEventLoop.get());
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JacksonSerializerTest {
+
+    public static class Item {
+        public String name = "item";
+        public int count = 1;
+    }
+
+    public static class DetailedItem extends Item {
+        public String detail = "more";
+    }
+
+    private static final Serializer JSON = new JacksonSerializer(Json.mapper, MediaType.APPLICATION_JSON, "utf-8");
+
+    private static String encode(Serializer serializer, Object value) {
+        final Buffer buffer = Buffer.buffer();
+        serializer.serialize(value, buffer);
+        return buffer.toString("utf-8");
+    }
+
+    @Test
+    public void typedSerializerOfNonFinalTypeWritesDeclaredType() {
+        final Serializer typed = JSON.forType(Item.class);
+        assertNotSame(JSON, typed);
+        assertEquals(Json.encode(new Item()), encode(typed, new Item()));
+        assertEquals(Json.encode(new Item()), typed.serialize(new Item()));
+    }
+
+    @Test
+    public void typedSerializerKeepsPropertiesOfSubclassValues() {
+        final Serializer typed = JSON.forType(Item.class);
+        assertEquals(Json.encode(new DetailedItem()), encode(typed, new DetailedItem()));
+        assertTrue(typed.serialize(new DetailedItem()).contains("\"detail\":\"more\""));
+    }
+
+    @Test
+    public void typedSerializerWritesOtherValuesAsUntyped() {
+        final Serializer typed = JSON.forType(Item.class);
+        assertEquals("\"text\"", encode(typed, "text"));
+        assertEquals("null", encode(typed, null));
+    }
+
+    @Test
+    public void typedSerializerReadsDeclaredType() {
+        final Item item = JSON.forType(Item.class).deserialize(Buffer.buffer("{\"name\":\"a\",\"count\":3}"), Item.class);
+        assertEquals("a", item.name);
+        assertEquals(3, item.count);
+    }
+
+    @Test
+    public void untypedForObjectAndPrimitives() {
+        assertSame(JSON, JSON.forType(Object.class));
+        assertSame(JSON, JSON.forType(int.class));
+        final Serializer typed = JSON.forType(Item.class);
+        assertSame(typed, typed.forType(Item.class));
+    }
+
+}
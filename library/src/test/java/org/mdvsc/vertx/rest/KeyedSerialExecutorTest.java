@@ -0,0 +1,136 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.http.HttpMethod;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class KeyedSerialExecutorTest {
+
+    private static volatile CountDownLatch entered;
+    private static volatile CountDownLatch release;
+    private static final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @URL("ordered")
+    public static class OrderedResource {
+
+        @POST
+        @URL("save")
+        @Blocking(orderBy = "id")
+        public Object save(@Query("id") String id, @Query("n") int n) throws InterruptedException {
+            if (n == 1) {
+                entered.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            calls.add(id + n);
+            return n;
+        }
+
+    }
+
+    private TestServer server;
+    private ExecutorService workers;
+
+    @Before
+    public void start() throws Exception {
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        calls.clear();
+        workers = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void stop() throws Exception {
+        release.countDown();
+        workers.shutdownNow();
+        if (server != null) server.close();
+    }
+
+    @Test
+    public void tasksOfSameKeyRunInSubmitOrder() throws Exception {
+        final KeyedSerialExecutor executor = new KeyedSerialExecutor();
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            final int n = i;
+            final KeyedSerialExecutor.Stripe stripe = executor.submit("user", () -> {
+                order.add(n);
+                done.countDown();
+            }, Assert::fail);
+            if (stripe != null) workers.execute(stripe::drain);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) assertEquals(Integer.valueOf(i), order.get(i));
+    }
+
+    @Test
+    public void secondTaskOfKeyJoinsDrainingStripe() {
+        final KeyedSerialExecutor executor = new KeyedSerialExecutor();
+        final List<String> order = new ArrayList<>();
+        final KeyedSerialExecutor.Stripe first = executor.submit(1, () -> order.add("a"), null);
+        assertNotNull(first);
+        assertNull(executor.submit(1, () -> order.add("b"), null));
+        first.drain();
+        assertEquals(Arrays.asList("a", "b"), order);
+        // drained stripe is dispatched again by next task
+        assertNotNull(executor.submit(1, () -> order.add("c"), null));
+    }
+
+    @Test
+    public void tasksOfOtherKeysRunInParallel() throws Exception {
+        final KeyedSerialExecutor executor = new KeyedSerialExecutor();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch other = new CountDownLatch(1);
+        final KeyedSerialExecutor.Stripe a = executor.submit("a", () -> {
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        }, null);
+        workers.execute(a::drain);
+        final KeyedSerialExecutor.Stripe b = executor.submit("b", other::countDown, null);
+        assertNotNull(b);
+        workers.execute(b::drain);
+        assertTrue(other.await(10, TimeUnit.SECONDS));
+        blocked.countDown();
+    }
+
+    @Test
+    public void rejectedStripeRejectsQueuedTasks() {
+        final KeyedSerialExecutor executor = new KeyedSerialExecutor();
+        final List<String> rejected = new ArrayList<>();
+        final KeyedSerialExecutor.Stripe stripe = executor.submit("k", Assert::fail, () -> rejected.add("1"));
+        executor.submit("k", Assert::fail, () -> rejected.add("2"));
+        stripe.reject();
+        assertEquals(Arrays.asList("1", "2"), rejected);
+    }
+
+    @Test
+    public void blockingCallsOfSameParameterValueRunInOrder() throws Exception {
+        server = TestServer.start(new OrderedResource());
+        final CompletableFuture<TestServer.Response> first = server.send(HttpMethod.POST, "/ordered/save?id=a&n=1", null);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        final CompletableFuture<TestServer.Response> second = server.send(HttpMethod.POST, "/ordered/save?id=a&n=2", null);
+        // other value is not held by the blocked call
+        assertEquals("3", server.post("/ordered/save?id=b&n=3", null).body());
+        assertFalse(second.isDone());
+        release.countDown();
+        assertEquals("1", TestServer.await(first).body());
+        assertEquals("2", TestServer.await(second).body());
+        assertEquals(Arrays.asList("b3", "a1", "a2"), calls);
+    }
+
+}
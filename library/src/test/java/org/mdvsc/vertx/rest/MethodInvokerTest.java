@@ -0,0 +1,64 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MethodInvokerTest {
+
+    public static class Target {
+
+        public String join(String a, int b) {
+            return a + b;
+        }
+
+        public static long twice(long value) {
+            return value * 2;
+        }
+
+        public void fail() throws IOException {
+            throw new IOException("failed");
+        }
+
+        int hidden() {
+            return 7;
+        }
+
+    }
+
+    private static Object invoke(String name, boolean useReflection, Object target, Object... arguments) throws Throwable {
+        Method method = null;
+        for (Method m : Target.class.getDeclaredMethods()) if (m.getName().equals(name)) method = m;
+        return MethodInvoker.create(method, useReflection).invoke(target, arguments);
+    }
+
+    @Test
+    public void invokesInstanceAndStaticMethods() throws Throwable {
+        for (boolean useReflection : new boolean[]{false, true}) {
+            assertEquals("a1", invoke("join", useReflection, new Target(), "a", 1));
+            assertEquals(8L, invoke("twice", useReflection, null, 4L));
+        }
+    }
+
+    @Test
+    public void invokesMethodsOutsidePublicLookup() throws Throwable {
+        assertEquals(7, invoke("hidden", false, new Target()));
+    }
+
+    @Test
+    public void throwsExceptionOfMethodUnwrapped() throws Throwable {
+        for (boolean useReflection : new boolean[]{false, true}) {
+            try {
+                invoke("fail", useReflection, new Target());
+                fail();
+            } catch (IOException e) {
+                assertEquals("failed", e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MethodResolveTableTest {
+
+    @URL("overload")
+    public static class OverloadResource {
+
+        @GET
+        public Object none() {
+            return "none";
+        }
+
+        @GET
+        public Object a(@Query("a") int a) {
+            return "a" + a;
+        }
+
+        @GET
+        public Object ab(@Query("a") int a, @Query("b") int b) {
+            return "ab" + (a + b);
+        }
+
+        @GET
+        public Object c(@Query("c") String c, @Query(value = "d", defaultValue = "4") int d) {
+            return "c" + c + d;
+        }
+
+        @GET
+        @URL("strict")
+        public Object strict(@Query("a") int a) {
+            return a;
+        }
+
+    }
+
+    @URL("wide")
+    public static class WideResource {
+
+        @GET
+        public Object all(@Query("a") int a, @Query("b") int b, @Query("c") int c, @Query("d") int d, @Query("e") int e,
+                          @Query("f") int f, @Query("g") int g, @Query("h") int h, @Query("i") int i) {
+            return a + b + c + d + e + f + g + h + i;
+        }
+
+        @GET
+        public Object one(@Query("a") int a) {
+            return "a" + a;
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new OverloadResource(), new WideResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void mostParametersPresentMatchFirst() throws Exception {
+        assertEquals("\"ab3\"", server.get("/overload?a=1&b=2").body());
+        assertEquals("\"a1\"", server.get("/overload?a=1").body());
+    }
+
+    @Test
+    public void absentParametersFallBackToFewerParameters() throws Exception {
+        assertEquals("\"none\"", server.get("/overload").body());
+        assertEquals("\"a1\"", server.get("/overload?a=1&x=2").body());
+    }
+
+    @Test
+    public void defaultValueBindsAbsentParameter() throws Exception {
+        assertEquals("\"cx5\"", server.get("/overload?c=x&d=5").body());
+        assertEquals("\"cx4\"", server.get("/overload?c=x").body());
+    }
+
+    @Test
+    public void malformedValueFallsBackToOtherOverload() throws Exception {
+        assertEquals("\"none\"", server.get("/overload?a=x&b=2").body());
+    }
+
+    @Test
+    public void malformedValueWithoutOverloadIsBadRequest() throws Exception {
+        final TestServer.Response response = server.get("/overload/strict?a=x");
+        assertEquals(400, response.status);
+        assertEquals("\"parameter a is not a valid int\"", response.body());
+        assertEquals(404, server.get("/overload/strict").status);
+    }
+
+    @Test
+    public void routeOfManyKeysResolvesWithoutFullTable() throws Exception {
+        assertEquals("45", server.get("/wide?a=1&b=2&c=3&d=4&e=5&f=6&g=7&h=8&i=9").body());
+        assertEquals("\"a1\"", server.get("/wide?a=1&b=2").body());
+        assertEquals("\"a1\"", server.get("/wide?a=1&b=2").body());
+    }
+
+    @Test
+    public void plansOfManyKeysAreBuiltOncePerMask() throws Exception {
+        final List<MethodCache> candidates = new ArrayList<>();
+        for (Method method : WideResource.class.getDeclaredMethods()) candidates.add(new MethodCache(method));
+        final MethodResolveTable table = new MethodResolveTable(candidates);
+        final MethodResolveTable.Plan plan = table.plan(1);
+        assertSame(plan, table.plan(1));
+        assertSame(table.plan(0x1ff), table.plan(0x1ff));
+        assertNotSame(plan, table.plan(0x1ff));
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ParamConvertersTest {
+
+    public enum Color { RED, GREEN }
+
+    public static final class Sku {
+
+        final String code;
+
+        public Sku(String code) {
+            if (code.isEmpty()) throw new IllegalArgumentException("empty sku");
+            this.code = code;
+        }
+
+    }
+
+    public static final class Point {
+
+        final int x;
+        final int y;
+
+        private Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+    }
+
+    @URL("convert")
+    public static class ConvertResource {
+
+        @GET
+        @URL("date")
+        public Object date(@Query("at") Date at) {
+            return at.getTime();
+        }
+
+        @GET
+        @URL("sku")
+        public Object sku(@Query("sku") Sku sku) {
+            return sku.code;
+        }
+
+        @GET
+        @URL("point")
+        public Object point(@Query("p") Point point) {
+            return point.x + point.y;
+        }
+
+        @GET
+        @URL("typed")
+        public Object typed(@Query("c") Color color, @Query("id") UUID id, @Query("at") Instant at) {
+            return color + " " + id.getLeastSignificantBits() + " " + at.getEpochSecond();
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(mapper -> mapper.registerParamConverter(Point.class, value -> {
+            final String[] parts = value.split(":");
+            return new Point(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }), new ConvertResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void dateIsLeftToSerializer() throws Exception {
+        final ParamConverters converters = new ParamConverters();
+        assertNull(converters.findBuiltIn(Date.class));
+        assertNull(converters.findBuiltIn(java.sql.Timestamp.class));
+        assertEquals("1600000000000", server.get("/convert/date?at=1600000000000").body());
+        assertEquals(String.valueOf(Instant.parse("2020-01-01T00:00:00Z").toEpochMilli()),
+                server.get("/convert/date?at=%222020-01-01%22").body());
+    }
+
+    @Test
+    public void bindsValueTypeByStringConstructor() throws Exception {
+        assertNotNull(new ParamConverters().findBuiltIn(Sku.class));
+        assertEquals("\"a-1\"", server.get("/convert/sku?sku=a-1").body());
+        assertEquals(400, server.get("/convert/sku?sku=").status);
+    }
+
+    @Test
+    public void bindsByRegisteredConverter() throws Exception {
+        assertEquals("5", server.get("/convert/point?p=2:3").body());
+    }
+
+    @Test
+    public void bindsBuiltInTypes() throws Exception {
+        final UUID id = new UUID(1, 7);
+        assertEquals("\"GREEN 7 60\"", server.get("/convert/typed?c=GREEN&id=" + id + "&at=1970-01-01T00:01:00Z").body());
+        assertEquals(400, server.get("/convert/typed?c=BLUE&id=" + id + "&at=1970-01-01T00:01:00Z").status);
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParameterBinderTest {
+
+    public static class Item {
+        public String name;
+        public int count;
+    }
+
+    @URL("binder")
+    public static class BinderResource {
+
+        @GET
+        @URL("path/:id")
+        public Object path(@Path("id") long id, @Header(value = "X-Scale", defaultValue = "2") int scale) {
+            return id * scale;
+        }
+
+        @GET
+        @URL("list")
+        public Object list(@Query("names") @Separator(",") List<String> names) {
+            return String.join("|", names);
+        }
+
+        @GET
+        @URL("map")
+        public Object map(@QueryMap MultiMap query, @Context HttpServerRequest request) {
+            return query.get("k") + "@" + request.path();
+        }
+
+        @POST
+        @URL("body")
+        public Object body(@Body Item item) {
+            return item.name + ":" + item.count;
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new BinderResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void bindsPathAndHeaderWithDefault() throws Exception {
+        assertEquals("20", server.get("/binder/path/10").body());
+        assertEquals("30", server.get("/binder/path/10", "X-Scale", "3").body());
+        assertEquals(400, server.get("/binder/path/ten").status);
+    }
+
+    @Test
+    public void bindsSeparatedList() throws Exception {
+        assertEquals("\"a|b|c\"", server.get("/binder/list?names=a,b,c").body());
+    }
+
+    @Test
+    public void bindsMapAndContext() throws Exception {
+        assertEquals("\"v@/binder/map\"", server.get("/binder/map?k=v").body());
+    }
+
+    @Test
+    public void bindsJsonBody() throws Exception {
+        assertEquals("\"n:2\"", server.post("/binder/body", Buffer.buffer("{\"name\":\"n\",\"count\":2}"), "Content-Type", "application/json").body());
+        assertEquals(400, server.post("/binder/body", Buffer.buffer("{not json"), "Content-Type", "application/json").status);
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mdvsc.vertx.utils.Splitter;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveArrayBuilderTest {
+
+    @URL("primitives")
+    public static class PrimitiveResource {
+
+        @GET
+        @URL("ints")
+        public Object ints(@Query("id") @Separator(",") int[] ids) {
+            return Arrays.stream(ids).sum();
+        }
+
+        @GET
+        @URL("longs")
+        public Object longs(@Query("id") long[] ids) {
+            return ids.length + ":" + Arrays.stream(ids).sum();
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new PrimitiveResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    private static Object split(Class<?> type, String content) {
+        final Splitter splitter = new Splitter(",", "", "");
+        final PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.create(type, splitter, splitter.count(content, 0, content.length()));
+        return splitter.split(content, 0, content.length(), builder) ? builder.build() : null;
+    }
+
+    @Test
+    public void buildsSizedPrimitiveArrays() {
+        assertArrayEquals(new int[]{1, -2, 3}, (int[]) split(int[].class, "1, -2 ,3"));
+        assertArrayEquals(new long[]{0L, Long.MAX_VALUE}, (long[]) split(long[].class, "0," + Long.MAX_VALUE));
+        assertArrayEquals(new double[]{1.5, -2}, (double[]) split(double[].class, "1.5,-2"), 0);
+        assertArrayEquals(new boolean[]{true, false}, (boolean[]) split(boolean[].class, "true,false"));
+    }
+
+    @Test
+    public void rejectsMalformedOrOutOfRangeItems() {
+        assertNull(split(int[].class, "1,x"));
+        assertNull(split(int[].class, "1," + Long.MAX_VALUE));
+        assertNull(split(long[].class, "0,1.5"));
+        assertNull(split(double[].class, "1,e"));
+    }
+
+    @Test
+    public void growsBeyondExpectedCapacity() {
+        final PrimitiveArrayBuilder builder = PrimitiveArrayBuilder.create(int[].class, new Splitter(",", "", ""), 0);
+        for (int i = 0; i < 5; i++) assertTrue(builder.add(String.valueOf(i), 0, 1));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, (int[]) builder.build());
+    }
+
+    @Test
+    public void bindsSeparatedAndRepeatedValues() throws Exception {
+        assertEquals("6", server.get("/primitives/ints?id=1,2,3").body());
+        assertEquals("\"2:7\"", server.get("/primitives/longs?id=3&id=4").body());
+        assertEquals(400, server.get("/primitives/ints?id=1,x").status);
+    }
+
+}
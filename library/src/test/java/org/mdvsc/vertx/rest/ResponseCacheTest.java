@@ -0,0 +1,166 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    private static final AtomicInteger calls = new AtomicInteger();
+
+    @URL("cached")
+    public static class CachedResource {
+
+        @GET
+        @URL("square")
+        @Cacheable(maxEntries = 2)
+        public Object square(@Query("n") int n, @Context HttpServerResponse response) {
+            calls.incrementAndGet();
+            return n * n;
+        }
+
+        @GET
+        @URL("missing")
+        @Cacheable
+        public Object missing(@Query("n") int n, @Context HttpServerResponse response) {
+            calls.incrementAndGet();
+            response.setStatusCode(404);
+            return "none";
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(new CachedResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    private static Cacheable cacheable(long ttl, int maxEntries) {
+        return new Cacheable() {
+            @Override
+            public long ttl() {
+                return ttl;
+            }
+
+            @Override
+            public int maxEntries() {
+                return maxEntries;
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Cacheable.class;
+            }
+        };
+    }
+
+    private static CallKey key(Object... arguments) {
+        final boolean[] keyParameters = new boolean[arguments.length];
+        Arrays.fill(keyParameters, true);
+        return new CallKey(arguments, keyParameters, null);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final ResponseCache cache = new ResponseCache(cacheable(0, 2));
+        cache.put(key(1), Buffer.buffer("1"));
+        cache.put(key(2), Buffer.buffer("2"));
+        assertNotNull(cache.get(key(1)));
+        cache.put(key(3), Buffer.buffer("3"));
+        assertNull(cache.get(key(2)));
+        assertEquals("1", cache.get(key(1)).toString());
+        assertEquals("3", cache.get(key(3)).toString());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void largeCacheKeepsRecentlyUsedEntryWhileEvicting() {
+        final ResponseCache cache = new ResponseCache(cacheable(0, 100));
+        cache.put(key("hot"), Buffer.buffer("hot"));
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(cache.get(key("hot")));
+            cache.put(key(i), Buffer.buffer(String.valueOf(i)));
+        }
+        assertEquals(100, cache.size());
+        assertEquals(901, cache.getEvictionCount());
+        assertEquals("hot", cache.get(key("hot")).toString());
+    }
+
+    @Test
+    public void concurrentHitsAndPutsStayBounded() throws Exception {
+        final ResponseCache cache = new ResponseCache(cacheable(0, 50));
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> runs = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int seed = t;
+                runs.add(threads.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        final CallKey key = key((i * 31 + seed) % 200);
+                        if (cache.get(key) == null) cache.put(key, Buffer.buffer("v"));
+                    }
+                }));
+            }
+            for (Future<?> run : runs) run.get(30, TimeUnit.SECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+        assertTrue(cache.size() <= 50);
+        assertEquals(80000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    public void expiresAfterTtl() throws Exception {
+        final ResponseCache cache = new ResponseCache(cacheable(1, 10));
+        cache.put(key("a"), Buffer.buffer("a"));
+        Thread.sleep(5);
+        assertNull(cache.get(key("a")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void hitSkipsInvocation() throws Exception {
+        final Method square = CachedResource.class.getMethod("square", int.class, HttpServerResponse.class);
+        final ResponseCache cache = server.mapper.getResponseCaches().get(square);
+        final int before = calls.get();
+        final long hits = cache.getHitCount();
+        assertEquals("49", server.get("/cached/square?n=7").body());
+        assertEquals("49", server.get("/cached/square?n=7").body());
+        assertEquals("64", server.get("/cached/square?n=8").body());
+        assertEquals(before + 2, calls.get());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void onlyOkResponsesAreCached() throws Exception {
+        final int before = calls.get();
+        assertEquals(404, server.get("/cached/missing?n=1").status);
+        assertEquals(404, server.get("/cached/missing?n=1").status);
+        assertEquals(before + 2, calls.get());
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.mdvsc.vertx.rest;
+
+import io.reactivex.Flowable;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class ResponseCloseHandlersTest {
+
+    private static volatile CountDownLatch appClosed;
+    private static volatile CountDownLatch cancelled;
+    private static final AtomicInteger calls = new AtomicInteger();
+
+    @URL("closing")
+    public static class ClosingResource {
+
+        @GET
+        @URL("pending")
+        @Coalesce
+        public CompletableFuture<String> pending(@Query("id") int id, @Context RoutingContext context) {
+            calls.incrementAndGet();
+            ResponseCloseHandlers.add(context, v -> appClosed.countDown());
+            return new CompletableFuture<>();
+        }
+
+        @GET
+        @URL("stream")
+        public Flowable<Integer> stream(@Context RoutingContext context) {
+            ResponseCloseHandlers.add(context, v -> appClosed.countDown());
+            return Flowable.<Integer>never().startWith(1).doOnCancel(cancelled::countDown);
+        }
+
+    }
+
+    private TestServer server;
+    private HttpClient client;
+
+    @Before
+    public void start() throws Exception {
+        appClosed = new CountDownLatch(1);
+        cancelled = new CountDownLatch(1);
+        calls.set(0);
+        server = TestServer.start(new ClosingResource());
+        client = server.vertx.createHttpClient();
+    }
+
+    @After
+    public void stop() throws Exception {
+        server.close();
+    }
+
+    /**
+     * send request and close its connection once response head arrives, or once method is called if it has none
+     */
+    private void sendAndClose(String uri, boolean awaitHead) throws InterruptedException {
+        final int called = calls.get();
+        final HttpClientRequest request = client.get(server.port, "localhost", uri, response -> {
+            response.exceptionHandler(e -> { });
+            response.request().connection().close();
+        });
+        request.exceptionHandler(e -> { });
+        request.end();
+        if (!awaitHead) {
+            awaitUntil(() -> calls.get() > called);
+            assertEquals(called + 1, calls.get());
+            request.connection().close();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+    }
+
+    @Test
+    public void closeRunsHandlersOfApplicationAndCoalescedCall() throws Exception {
+        sendAndClose("/closing/pending?id=1", false);
+        assertTrue(appClosed.await(10, TimeUnit.SECONDS));
+        // flight of closed response is dropped, next call leads its own instead of waiting for it
+        sendAndClose("/closing/pending?id=1", false);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void closeRunsHandlersOfApplicationAndStreamingWriter() throws Exception {
+        sendAndClose("/closing/stream", true);
+        assertTrue(appClosed.await(10, TimeUnit.SECONDS));
+        assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,172 @@
+package org.mdvsc.vertx.rest;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultAdaptersTest {
+
+    /**
+     * result type of a library the mapper does not know
+     */
+    public static final class Deferred {
+
+        final Supplier<Object> value;
+
+        Deferred(Supplier<Object> value) {
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * tells thread serializing it
+     */
+    public static final class ThreadProbe {
+
+        public String getThread() {
+            return Thread.currentThread().getName().startsWith("vert.x-eventloop") ? "eventloop" : "other";
+        }
+
+    }
+
+    @URL("async")
+    public static class AsyncResource {
+
+        @GET
+        @URL("stageOfWorker")
+        public CompletionStage<ThreadProbe> stageOfWorker(@Context Vertx vertx) {
+            final CompletableFuture<ThreadProbe> stage = new CompletableFuture<>();
+            // worker of request context, which vertx reports as current context too
+            vertx.executeBlocking(fut -> stage.complete(new ThreadProbe()), false, null);
+            return stage;
+        }
+
+        @GET
+        @URL("futureOfWorker")
+        public Future<ThreadProbe> futureOfWorker(@Context Vertx vertx) {
+            final Future<ThreadProbe> future = Future.future();
+            vertx.executeBlocking(fut -> future.complete(new ThreadProbe()), false, null);
+            return future;
+        }
+
+        @GET
+        @URL("stage")
+        public CompletionStage<String> stage() {
+            return CompletableFuture.supplyAsync(() -> "stage");
+        }
+
+        @GET
+        @URL("failedStage")
+        public CompletionStage<String> failedStage() {
+            return CompletableFuture.supplyAsync(() -> {
+                throw new IllegalStateException("failed");
+            });
+        }
+
+        @GET
+        @URL("future")
+        public Future<Integer> future(@Context Vertx vertx) {
+            final Future<Integer> future = Future.future();
+            vertx.setTimer(10, id -> future.complete(42));
+            return future;
+        }
+
+        @GET
+        @URL("single")
+        public Single<String> single() {
+            return Single.just("single").delay(10, TimeUnit.MILLISECONDS);
+        }
+
+        @GET
+        @URL("maybe")
+        public Maybe<String> maybe(@Query(value = "empty", defaultValue = "false") boolean empty) {
+            return empty ? Maybe.empty() : Maybe.just("maybe");
+        }
+
+        @GET
+        @URL("completable")
+        public Completable completable() {
+            return Completable.complete();
+        }
+
+        @GET
+        @URL("streamed")
+        public CompletionStage<Stream<Integer>> streamed() {
+            return CompletableFuture.completedFuture(Stream.of(1, 2));
+        }
+
+        @GET
+        @URL("deferred")
+        public Deferred deferred() {
+            return new Deferred(() -> "deferred");
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        server = TestServer.start(mapper -> mapper.registerResultAdapter(Deferred.class,
+                (deferred, handler) -> handler.handle(Future.succeededFuture(deferred.value.get()))), new AsyncResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void completionStageValueOrFailure() throws Exception {
+        assertEquals("\"stage\"", server.get("/async/stage").body());
+        assertEquals(500, server.get("/async/failedStage").status);
+    }
+
+    @Test
+    public void vertxFuture() throws Exception {
+        assertEquals("42", server.get("/async/future").body());
+    }
+
+    @Test
+    public void resultCompletedByWorkerIsWrittenOnEventLoop() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals("{\"thread\":\"eventloop\"}", server.get("/async/stageOfWorker").body());
+            assertEquals("{\"thread\":\"eventloop\"}", server.get("/async/futureOfWorker").body());
+        }
+    }
+
+    @Test
+    public void rxSingleMaybeAndCompletable() throws Exception {
+        assertEquals("\"single\"", server.get("/async/single").body());
+        assertEquals("\"maybe\"", server.get("/async/maybe").body());
+        final TestServer.Response empty = server.get("/async/maybe?empty=true");
+        assertEquals(200, empty.status);
+        assertEquals(0, empty.body.length());
+        assertEquals(0, server.get("/async/completable").body.length());
+    }
+
+    @Test
+    public void adaptedValueIsWrittenAsReturned() throws Exception {
+        assertEquals("[1,2]", server.get("/async/streamed").body());
+    }
+
+    @Test
+    public void registeredAdapter() throws Exception {
+        assertEquals("\"deferred\"", server.get("/async/deferred").body());
+    }
+
+}
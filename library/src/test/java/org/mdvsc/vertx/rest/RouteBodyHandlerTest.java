@@ -0,0 +1,92 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.Router;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.Assert.assertEquals;
+
+public class RouteBodyHandlerTest {
+
+    private static final int DEFAULT_LIMIT = 1000;
+
+    @URL("body")
+    public static class BodyResource {
+
+        @POST
+        @URL("small")
+        @BodyConfig(limit = 10)
+        public Object small(@Body String body) {
+            return body.length();
+        }
+
+        @POST
+        @URL("shared")
+        @BodyConfig(limit = 10)
+        public Object sharedSmall(@Query("small") int small, @Body String body) {
+            return "small" + body.length();
+        }
+
+        @POST
+        @URL("shared")
+        public Object sharedDefault(@Body String body) {
+            return "default" + body.length();
+        }
+
+        @POST
+        @URL("stream")
+        public CompletionStage<Integer> stream(@Body ReadStream<Buffer> body) {
+            final CompletableFuture<Integer> size = new CompletableFuture<>();
+            final int[] count = new int[1];
+            body.handler(buffer -> count[0] += buffer.length());
+            body.endHandler(ignored -> size.complete(count[0]));
+            body.resume();
+            return size;
+        }
+
+    }
+
+    private static TestServer start(boolean globalBodyHandler) throws Exception {
+        final SimpleRestServer.Options options = new SimpleRestServer.Options();
+        options.bodyLimit = DEFAULT_LIMIT;
+        options.globalBodyHandler = globalBodyHandler;
+        return TestServer.start(options, null, new BodyResource());
+    }
+
+    private static Buffer body(int size) {
+        return Buffer.buffer(new byte[size]);
+    }
+
+    @Test
+    public void routeLimitRejectsLargerBody() throws Exception {
+        try (TestServer server = start(false)) {
+            assertEquals("10", server.post("/body/small", body(10)).body());
+            assertEquals(413, server.post("/body/small", body(11)).status);
+        }
+    }
+
+    @Test
+    public void methodKeepingDefaultKeepsRouteDefault() throws Exception {
+        try (TestServer server = start(false)) {
+            assertEquals("\"default100\"", server.post("/body/shared", body(100)).body());
+            assertEquals("\"small100\"", server.post("/body/shared?small=1", body(100)).body());
+            assertEquals(413, server.post("/body/shared", body(DEFAULT_LIMIT + 1)).status);
+        }
+    }
+
+    @Test
+    public void globalBodyHandlerServesDirectRoutes() throws Exception {
+        try (TestServer server = start(true)) {
+            server.mapper.provideContext(Router.class).post("/direct").handler(event ->
+                    event.response().end(event.getBody() == null ? "none" : String.valueOf(event.getBody().length())));
+            assertEquals("100", server.post("/direct", body(100)).body());
+            assertEquals("\"default100\"", server.post("/body/shared", body(100)).body());
+            assertEquals(String.valueOf(DEFAULT_LIMIT * 4), server.post("/body/stream", body(DEFAULT_LIMIT * 4)).body());
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.mdvsc.vertx.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.reactivex.Flowable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SequenceWriterTest {
+
+    private static final String CBOR = "application/cbor";
+    private static final String LISTING = "application/x-listing";
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+    /**
+     * binary serializer without sequence framing, lists are written as their count and items
+     */
+    private static final class ListingSerializer implements Serializer {
+
+        @Override
+        public String mediaEncode() {
+            return null;
+        }
+
+        @Override
+        public String mediaType() {
+            return LISTING;
+        }
+
+        @Override
+        public String serialize(Object object) {
+            if (!(object instanceof List)) return "<" + object + ">";
+            final StringBuilder builder = new StringBuilder().append((char) ((List<?>) object).size());
+            for (Object item : (List<?>) object) builder.append(serialize(item));
+            return builder.toString();
+        }
+
+        @Override
+        public <T> T deserialize(String content, Class<T> clz) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    @URL("sequence")
+    public static class SequenceResource {
+
+        @GET
+        @URL("stream")
+        public Stream<String> stream() {
+            return Stream.of("a", "b", "c");
+        }
+
+        @GET
+        @URL("empty")
+        public Stream<String> empty() {
+            return Stream.empty();
+        }
+
+        @GET
+        @URL("flowable")
+        @Blocking
+        public Flowable<Integer> flowable() {
+            return Flowable.range(1, 3);
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        final SimpleRestServer.Options options = new SimpleRestServer.Options();
+        options.streamChunkSize = 1;
+        server = TestServer.start(options, mapper -> {
+            mapper.registerSerializer(new JacksonSerializer(CBOR_MAPPER, CBOR, null));
+            mapper.registerSerializer(new ListingSerializer());
+        }, new SequenceResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void jsonSequenceIsArray() throws Exception {
+        assertEquals("[\"a\",\"b\",\"c\"]", server.get("/sequence/stream").body());
+        assertEquals("[]", server.get("/sequence/empty").body());
+        assertEquals("[1,2,3]", server.get("/sequence/flowable").body());
+    }
+
+    @Test
+    public void cborSequenceIsIndefiniteArray() throws Exception {
+        final TestServer.Response response = server.get("/sequence/stream", "Accept", CBOR);
+        assertEquals(CBOR, response.header("Content-Type"));
+        assertEquals((byte) 0x9f, response.body.getByte(0));
+        assertEquals(Arrays.asList("a", "b", "c"), CBOR_MAPPER.readValue(response.body.getBytes(), List.class));
+        assertEquals(Collections.emptyList(), CBOR_MAPPER.readValue(server.get("/sequence/empty", "Accept", CBOR).body.getBytes(), List.class));
+        assertEquals(Arrays.asList(1, 2, 3), CBOR_MAPPER.readValue(server.get("/sequence/flowable", "Accept", CBOR).body.getBytes(), List.class));
+    }
+
+    @Test
+    public void unframedSequenceIsCollected() throws Exception {
+        assertEquals("\u0003<a><b><c>", server.get("/sequence/stream", "Accept", LISTING).body.toString("ISO-8859-1"));
+        assertEquals("\u0000", server.get("/sequence/empty", "Accept", LISTING).body.toString("ISO-8859-1"));
+        assertEquals("\u0003<1><2><3>", server.get("/sequence/flowable", "Accept", LISTING).body.toString("ISO-8859-1"));
+    }
+
+}
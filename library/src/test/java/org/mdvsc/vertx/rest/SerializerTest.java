@@ -0,0 +1,89 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class SerializerTest {
+
+    public static class Item {
+        public String name;
+        public int count;
+    }
+
+    /**
+     * serializer of String methods only, carrying text as is
+     */
+    private static final class TextSerializer implements Serializer {
+
+        private final String mediaEncode;
+
+        TextSerializer(String mediaEncode) {
+            this.mediaEncode = mediaEncode;
+        }
+
+        @Override
+        public String mediaEncode() {
+            return mediaEncode;
+        }
+
+        @Override
+        public String mediaType() {
+            return "text/plain";
+        }
+
+        @Override
+        public String serialize(Object object) {
+            return String.valueOf(object);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(String content, Class<T> clz) {
+            return (T) content;
+        }
+
+    }
+
+    private static final JacksonSerializer JSON = new JacksonSerializer(Json.mapper, MediaType.APPLICATION_JSON, "utf-8");
+
+    @Test
+    public void defaultBufferMethodsEncodeByMediaEncode() {
+        final Buffer buffer = Buffer.buffer("head:");
+        new TextSerializer("utf-8").serialize("\u00e9", buffer);
+        assertArrayEquals("head:\u00e9".getBytes(StandardCharsets.UTF_8), buffer.getBytes());
+        assertEquals("\u00e9", new TextSerializer("utf-8").deserialize(Buffer.buffer("\u00e9", "utf-8"), String.class));
+    }
+
+    @Test
+    public void defaultBufferMethodsCarryBinaryAsLatin1() {
+        final Buffer buffer = Buffer.buffer();
+        new TextSerializer(null).serialize("\u00ff\u0001", buffer);
+        assertArrayEquals(new byte[]{(byte) 0xff, 1}, buffer.getBytes());
+        assertEquals("\u00ff\u0001", new TextSerializer(null).deserialize(Buffer.buffer(new byte[]{(byte) 0xff, 1}), String.class));
+    }
+
+    @Test
+    public void jacksonWritesIntoAndReadsFromBuffer() {
+        final Item item = new Item();
+        item.name = "caf\u00e9";
+        item.count = 2;
+        final Buffer buffer = Buffer.buffer("[");
+        JSON.serialize(item, buffer);
+        assertEquals("[{\"name\":\"caf\u00e9\",\"count\":2}", buffer.toString("utf-8"));
+        final Item read = JSON.deserialize(buffer.slice(1, buffer.length()), Item.class);
+        assertEquals("caf\u00e9", read.name);
+        assertEquals(2, read.count);
+        assertEquals(JSON.serialize(item), buffer.getString(1, buffer.length(), "utf-8"));
+    }
+
+    @Test(expected = io.vertx.core.json.DecodeException.class)
+    public void jacksonMalformedBufferIsDecodeException() {
+        JSON.deserialize(Buffer.buffer("{"), Item.class);
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.mdvsc.vertx.rest;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingBodyTest {
+
+    private static final int BODY_SIZE = 4 * 1024 * 1024;
+
+    @URL("stream")
+    public static class StreamResource {
+
+        @POST
+        @URL("read")
+        public CompletionStage<Long> read(@Body ReadStream<Buffer> body) {
+            final CompletableFuture<Long> size = new CompletableFuture<>();
+            final long[] count = new long[1];
+            body.handler(buffer -> count[0] += buffer.length());
+            body.exceptionHandler(size::completeExceptionally);
+            body.endHandler(ignored -> size.complete(count[0]));
+            body.resume();
+            return size;
+        }
+
+        @POST
+        @URL("flow")
+        public Single<Long> flow(@Body Flowable<Buffer> body) {
+            return body.reduce(0L, (count, buffer) -> count + buffer.length());
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        final SimpleRestServer.Options options = new SimpleRestServer.Options();
+        // aggregated bodies are limited far below streamed body size
+        options.bodyLimit = 1024;
+        server = TestServer.start(options, null, new StreamResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void readStreamReceivesWholeBody() throws Exception {
+        assertEquals(String.valueOf(BODY_SIZE), server.post("/stream/read", Buffer.buffer(new byte[BODY_SIZE])).body());
+    }
+
+    @Test
+    public void flowableReceivesWholeBody() throws Exception {
+        assertEquals(String.valueOf(BODY_SIZE), server.post("/stream/flow", Buffer.buffer(new byte[BODY_SIZE])).body());
+    }
+
+}
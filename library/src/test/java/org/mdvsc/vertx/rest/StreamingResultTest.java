@@ -0,0 +1,105 @@
+package org.mdvsc.vertx.rest;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.streams.ReadStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingResultTest {
+
+    private static final int ITEMS = 20000;
+
+    private static Path file;
+
+    @URL("results")
+    public static class ResultResource {
+
+        @GET
+        @URL("flowable")
+        public Flowable<Integer> flowable() {
+            return Flowable.range(0, ITEMS);
+        }
+
+        @GET
+        @URL("observable")
+        public Observable<String> observable() {
+            return Observable.just("a", "b");
+        }
+
+        @GET
+        @URL("buffers")
+        public Flowable<Buffer> buffers() {
+            return Flowable.just(Buffer.buffer("raw "), Buffer.buffer("bytes"));
+        }
+
+        @GET
+        @URL("failed")
+        public Flowable<Integer> failed() {
+            return Flowable.error(new IllegalStateException("no items"));
+        }
+
+        @GET
+        @URL("file")
+        @Blocking
+        public ReadStream<Buffer> file(@Context Vertx vertx) {
+            return vertx.fileSystem().openBlocking(file.toString(), new OpenOptions().setRead(true));
+        }
+
+    }
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        file = Files.createTempFile("streaming", ".txt");
+        Files.write(file, "file content".getBytes(StandardCharsets.UTF_8));
+        server = TestServer.start(new ResultResource());
+    }
+
+    @AfterClass
+    public static void stop() throws Exception {
+        server.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void flowableIsWrittenAsJsonArray() throws Exception {
+        final TestServer.Response response = server.get("/results/flowable");
+        assertEquals("chunked", response.header("Transfer-Encoding"));
+        final String[] items = response.body().substring(1, response.body().length() - 1).split(",");
+        assertEquals(ITEMS, items.length);
+        assertEquals(String.valueOf(ITEMS - 1), items[ITEMS - 1]);
+    }
+
+    @Test
+    public void observableIsWrittenAsJsonArray() throws Exception {
+        assertEquals("[\"a\",\"b\"]", server.get("/results/observable").body());
+    }
+
+    @Test
+    public void bufferElementsAreWrittenRaw() throws Exception {
+        assertEquals("raw bytes", server.get("/results/buffers").body());
+    }
+
+    @Test
+    public void failureBeforeFirstElementFailsRequest() throws Exception {
+        assertEquals(500, server.get("/results/failed").status);
+    }
+
+    @Test
+    public void readStreamIsPipedToResponse() throws Exception {
+        assertEquals("file content", server.get("/results/file").body());
+    }
+
+}
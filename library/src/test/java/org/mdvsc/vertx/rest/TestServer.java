@@ -0,0 +1,150 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * rest server of test resources on a free port, with a client sending requests to it
+ */
+final class TestServer implements AutoCloseable {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    final Vertx vertx = Vertx.vertx();
+    final RestMapper mapper;
+    private final HttpClient client;
+    final int port;
+
+    private TestServer(SimpleRestServer.Options options, Consumer<RestMapper> configure, Object... resources) throws Exception {
+        final CompletableFuture<Integer> listening = new CompletableFuture<>();
+        options.setPort(0);
+        final Server server = new Server(options, configure, listening, resources);
+        mapper = server.mapper();
+        vertx.deployVerticle(server, result -> {
+            if (result.failed()) listening.completeExceptionally(result.cause());
+        });
+        port = listening.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        client = vertx.createHttpClient();
+    }
+
+    static TestServer start(Object... resources) throws Exception {
+        return new TestServer(new SimpleRestServer.Options(), null, resources);
+    }
+
+    static TestServer start(Consumer<RestMapper> configure, Object... resources) throws Exception {
+        return new TestServer(new SimpleRestServer.Options(), configure, resources);
+    }
+
+    static TestServer start(SimpleRestServer.Options options, Consumer<RestMapper> configure, Object... resources) throws Exception {
+        return new TestServer(options, configure, resources);
+    }
+
+    Response get(String uri, String... headers) throws Exception {
+        return send(HttpMethod.GET, uri, null, headers).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    Response post(String uri, Buffer body, String... headers) throws Exception {
+        return send(HttpMethod.POST, uri, body, headers).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * send request without waiting
+     * @param headers header names and values in turn
+     */
+    CompletableFuture<Response> send(HttpMethod method, String uri, Buffer body, String... headers) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        final HttpClientRequest request = client.request(method, port, "localhost", uri, response -> response.bodyHandler(buffer ->
+                future.complete(new Response(response.statusCode(), response.headers(), buffer))));
+        request.exceptionHandler(future::completeExceptionally);
+        for (int i = 0; i + 1 < headers.length; i += 2) request.putHeader(headers[i], headers[i + 1]);
+        if (body == null) request.end(); else request.end(body);
+        return future;
+    }
+
+    static Response await(CompletableFuture<Response> response) throws Exception {
+        return response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static void awaitAll(List<CompletableFuture<Response>> responses) throws Exception {
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() throws Exception {
+        final CompletableFuture<Void> closed = new CompletableFuture<>();
+        vertx.close(result -> closed.complete(null));
+        closed.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static final class Response {
+
+        final int status;
+        final MultiMap headers;
+        final Buffer body;
+
+        Response(int status, MultiMap headers, Buffer body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        String body() {
+            return body.toString("utf-8");
+        }
+
+        String header(String name) {
+            return headers.get(name);
+        }
+
+        @Override
+        public String toString() {
+            return status + " " + body();
+        }
+
+    }
+
+    private static final class Server extends SimpleRestServer {
+
+        private final Consumer<RestMapper> configure;
+        private final CompletableFuture<Integer> listening;
+
+        Server(Options options, Consumer<RestMapper> configure, CompletableFuture<Integer> listening, Object... resources) {
+            super(options, resources);
+            this.configure = configure;
+            this.listening = listening;
+        }
+
+        RestMapper mapper() {
+            return restRouteMapper;
+        }
+
+        @Override
+        protected void onInitServerRouter(HttpServer server, Router router) {
+            if (configure != null) configure.accept(restRouteMapper);
+            super.onInitServerRouter(server, router);
+        }
+
+        @Override
+        protected void onServerListening(HttpServer server) {
+            listening.complete(server.actualPort());
+        }
+
+        @Override
+        protected void onServerListeningFail(Throwable throwable) {
+            listening.completeExceptionally(throwable);
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.mdvsc.vertx.rest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadsTest {
+
+    @URL("threads")
+    public static class ThreadResource {
+
+        @GET
+        @URL("virtual")
+        @Blocking(virtual = true)
+        public Object virtual() {
+            return threadKind();
+        }
+
+        @GET
+        @URL("plain")
+        @Blocking
+        public Object plain() {
+            return threadKind();
+        }
+
+        @GET
+        @URL("pooled")
+        @Blocking(pool = "reports")
+        public Object pooled() {
+            return threadKind();
+        }
+
+        private static String threadKind() {
+            final String name = Thread.currentThread().getName();
+            if (name.startsWith("vert.x-eventloop")) return "eventloop";
+            if (name.startsWith("vert.x-worker")) return "worker";
+            if (name.startsWith("reports")) return "reports";
+            return "virtual";
+        }
+
+    }
+
+    private static String expectedVirtual() {
+        return VirtualThreads.isSupported() ? "\"virtual\"" : "\"worker\"";
+    }
+
+    @Test
+    public void supportFollowsRuntime() {
+        boolean hasVirtualThreads;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            hasVirtualThreads = true;
+        } catch (NoSuchMethodException e) {
+            hasVirtualThreads = false;
+        }
+        // preview runtimes may have the method but refuse to use it
+        if (!hasVirtualThreads) assertFalse(VirtualThreads.isSupported());
+    }
+
+    @Test
+    public void virtualMethodRunsOnVirtualThreadOrFallsBackToWorker() throws Exception {
+        final SimpleRestServer.Options options = new SimpleRestServer.Options().addWorkerPool("reports", 1, 8, 60000);
+        try (TestServer server = TestServer.start(options, null, new ThreadResource())) {
+            assertEquals(expectedVirtual(), server.get("/threads/virtual").body());
+            assertEquals("\"worker\"", server.get("/threads/plain").body());
+        }
+    }
+
+    @Test
+    public void optionMakesBlockingMethodsWithoutPoolVirtual() throws Exception {
+        final SimpleRestServer.Options options = new SimpleRestServer.Options().addWorkerPool("reports", 1, 8, 60000);
+        options.virtualThreads = true;
+        try (TestServer server = TestServer.start(options, null, new ThreadResource())) {
+            assertEquals(expectedVirtual(), server.get("/threads/plain").body());
+            // named pools keep their own threads
+            assertEquals("\"reports\"", server.get("/threads/pooled").body());
+        }
+    }
+
+}
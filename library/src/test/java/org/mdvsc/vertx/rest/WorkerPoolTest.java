@@ -0,0 +1,161 @@
+package org.mdvsc.vertx.rest;
+
+import io.vertx.core.http.HttpMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class WorkerPoolTest {
+
+    private static volatile CountDownLatch entered;
+    private static volatile CountDownLatch release;
+
+    @URL("pooled")
+    public static class PooledResource {
+
+        @GET
+        @URL("slow")
+        @Blocking(pool = "reports")
+        public Object slow(@Query("n") int n) throws InterruptedException {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Thread.currentThread().getName().startsWith("reports") ? n : -1;
+        }
+
+        @GET
+        @URL("rows")
+        @Blocking(pool = "reports")
+        public Iterator<Integer> rows() {
+            return new Iterator<Integer>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == 0) {
+                        entered.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return next < 3;
+                }
+
+                @Override
+                public Integer next() {
+                    return next++;
+                }
+            };
+        }
+
+        @GET
+        @URL("fast")
+        @Blocking
+        public Object fast() {
+            return "fast";
+        }
+
+    }
+
+    private TestServer server;
+
+    @Before
+    public void start() throws Exception {
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        server = TestServer.start(new SimpleRestServer.Options().addWorkerPool("reports", 1, 1, 60000), null, new PooledResource());
+    }
+
+    @After
+    public void stop() throws Exception {
+        release.countDown();
+        server.close();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+    }
+
+    @Test
+    public void fullQueueIsRejectedWithServiceUnavailable() throws Exception {
+        final WorkerPool pool = server.mapper.getWorkerPools().get("reports");
+        final CompletableFuture<TestServer.Response> active = server.send(HttpMethod.GET, "/pooled/slow?n=1", null);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        final CompletableFuture<TestServer.Response> queued = server.send(HttpMethod.GET, "/pooled/slow?n=2", null);
+        awaitUntil(() -> pool.getQueueDepth() == 1);
+        assertEquals(1, pool.getActiveCount());
+        assertEquals(1, pool.getQueueDepth());
+
+        assertEquals(503, server.get("/pooled/slow?n=3").status);
+        assertEquals(1, pool.getRejectedCount());
+        // other blocking methods keep running on shared worker pool
+        assertEquals("\"fast\"", server.get("/pooled/fast").body());
+
+        release.countDown();
+        assertEquals("1", TestServer.await(active).body());
+        assertEquals("2", TestServer.await(queued).body());
+        // response may be written before worker leaves the call
+        awaitUntil(() -> pool.getActiveCount() == 0);
+        assertEquals(0, pool.getQueueDepth());
+        assertEquals(1, pool.getPoolSize());
+        assertEquals(1, pool.getQueueSize());
+    }
+
+    @Test
+    public void pullOfStreamedResultIsCountedByPool() throws Exception {
+        final WorkerPool pool = server.mapper.getWorkerPools().get("reports");
+        final CompletableFuture<TestServer.Response> rows = server.send(HttpMethod.GET, "/pooled/rows", null);
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        // method has returned, its iterator is pulled on a thread of pool
+        assertEquals(1, pool.getActiveCount());
+        final CompletableFuture<TestServer.Response> queued = server.send(HttpMethod.GET, "/pooled/slow?n=2", null);
+        awaitUntil(() -> pool.getQueueDepth() == 1);
+        assertEquals(503, server.get("/pooled/slow?n=3").status);
+
+        release.countDown();
+        assertEquals("[0,1,2]", TestServer.await(rows).body());
+        assertEquals("2", TestServer.await(queued).body());
+        awaitUntil(() -> pool.getActiveCount() == 0);
+        assertEquals(0, pool.getQueueDepth());
+    }
+
+    @Test
+    public void continuationRunsPastFullQueue() throws Exception {
+        final WorkerPool pool = WorkerPool.create(server.vertx, "bounded", 1, 1, 60000);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        try {
+            assertTrue(pool.executeBlocking(fut -> {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                done.countDown();
+            }, false, null));
+            awaitUntil(() -> pool.getActiveCount() == 1);
+            assertTrue(pool.executeBlocking(fut -> done.countDown(), false, null));
+            assertFalse(pool.executeBlocking(fut -> fail(), false, null));
+
+            final CountDownLatch continued = new CountDownLatch(1);
+            pool.executeContinuation(fut -> continued.countDown(), false, null);
+            assertEquals(2, pool.getQueueDepth());
+            assertEquals(1, pool.getRejectedCount());
+            blocked.countDown();
+            assertTrue(continued.await(10, TimeUnit.SECONDS));
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.close();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.mdvsc.vertx.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SplitterTest {
+
+    private static List<String> split(Splitter splitter, String content) {
+        final List<String> items = new ArrayList<>();
+        splitter.split(content, 0, content.length(), (c, start, end) -> items.add(c.subSequence(start, end).toString()));
+        return items;
+    }
+
+    private static List<String> splitItems(Splitter splitter, String content) {
+        final List<String> items = new ArrayList<>();
+        splitter.splitItems(content, 0, content.length(), (c, start, end) -> items.add(c.subSequence(start, end).toString()));
+        return items;
+    }
+
+    @Test
+    public void splitsLikeStringUtils() {
+        final Splitter splitter = new Splitter(",", null, null);
+        for (String content : new String[]{"a,b,c", "a,,b", "a,", ",a", "a", ""}) {
+            assertEquals(content, StringUtils.split(content, ","), split(splitter, content));
+        }
+        assertEquals(3, splitter.count("a,b,c", 0, 5));
+    }
+
+    @Test
+    public void withoutSeparatorKeepsWholeRange() {
+        assertEquals(Arrays.asList("a,b"), split(new Splitter(null, null, null), "a,b"));
+    }
+
+    @Test
+    public void splitsWrappedItemsKeepingTheirWrappers() {
+        final Splitter splitter = new Splitter(",", "{", "}");
+        assertEquals(Arrays.asList("{\"a\":1}", "{\"a\":2}"), splitItems(splitter, "{\"a\":1} , {\"a\":2}"));
+        // separators inside items are not item boundaries
+        assertEquals(Arrays.asList("{\"a\":\"x,y\"}"), splitItems(splitter, "{\"a\":\"x,y\"}"));
+    }
+
+    @Test
+    public void findsRangeBetweenStartAndEnd() {
+        final Splitter splitter = new Splitter(",", "[", "]");
+        final String content = "[1,2]";
+        final int start = splitter.betweenStart(content, 0, content.length());
+        final int end = splitter.betweenEnd(content, start, content.length());
+        assertEquals("1,2", content.substring(start, end));
+    }
+
+    @Test
+    public void stopsWhenConsumerDeclines() {
+        final List<String> items = new ArrayList<>();
+        assertFalse(new Splitter(",", null, null).split("a,b,c", 0, 5, (c, start, end) -> items.add(c.subSequence(start, end).toString()) && items.size() < 2));
+        assertEquals(Arrays.asList("a", "b"), items);
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.mdvsc.vertx.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StringUtilsTest {
+
+    private static Long tryParseLong(String content, long min, long max) {
+        return StringUtils.tryParseLong(content, 0, content.length(), min, max);
+    }
+
+    private static boolean isDecimal(String content) {
+        return StringUtils.isDecimal(content, 0, content.length());
+    }
+
+    @Test
+    public void parsesLongWithinRange() {
+        assertEquals(Long.valueOf(42), tryParseLong("42", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Long.valueOf(-7), tryParseLong("-7", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Long.valueOf(0), tryParseLong("-0", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Long.valueOf(Long.MIN_VALUE), tryParseLong("-9223372036854775808", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), tryParseLong("9223372036854775807", Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void rejectsMalformedOrOutOfRangeLong() {
+        assertNull(tryParseLong("", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertNull(tryParseLong("-", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertNull(tryParseLong("1a", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertNull(tryParseLong("9223372036854775808", Long.MIN_VALUE, Long.MAX_VALUE));
+        assertNull(tryParseLong("128", Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertNull(tryParseLong("0", 1, 10));
+    }
+
+    @Test
+    public void recognizesDecimalsOfParseDouble() {
+        for (String valid : new String[]{"1", "-1.5", ".5", "5.", "1e10", "1.5E-3", "2f", "NaN", "-Infinity"}) {
+            assertTrue(valid, isDecimal(valid));
+            Double.parseDouble(valid);
+        }
+        for (String invalid : new String[]{"", ".", "e5", "1e", "1.2.3", "0x10", "abc"}) {
+            assertFalse(invalid, isDecimal(invalid));
+        }
+    }
+
+    @Test
+    public void transObjectSplitsListsAndArrays() {
+        assertArrayEquals(new int[]{1, 2}, StringUtils.transObject("1,2", null, int[].class, ",", null));
+        assertEquals(Arrays.asList(3L, 4L), StringUtils.transObject("[3],[4]", null, List.class, Long.class, ",", "[", "]", null));
+        assertEquals(Integer.valueOf(5), StringUtils.transObject(null, "5", Integer.class, null, null));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void transObjectThrowsOnMalformedContent() {
+        StringUtils.transObject("1,x", null, int[].class, ",", null);
+    }
+
+}
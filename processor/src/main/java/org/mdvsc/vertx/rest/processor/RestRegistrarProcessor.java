@@ -0,0 +1,180 @@
+package org.mdvsc.vertx.rest.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Generates a ResourceRegistrar for each class declaring route methods, for reflection free invocation.
+ * The registrar lists route methods in source order and calls them directly, so the mapper neither scans
+ * declared methods nor invokes them through reflection. Binders are not generated, the mapper still looks up
+ * each listed method and reads its parameter annotations reflectively once, at registration.
+ */
+public class RestRegistrarProcessor extends AbstractProcessor {
+
+    private static final String REST_PACKAGE = "org.mdvsc.vertx.rest.";
+    private static final String REGISTRAR_CLASS = REST_PACKAGE + "ResourceRegistrar";
+    private static final String CLASS_NAME_SUFFIX = "_RestRegistrar";
+    private static final String[] ROUTE_ANNOTATIONS = {"URL", "GET", "PUT", "POST", "HEAD", "PATCH", "DELETE", "OPTIONS"};
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new HashSet<>();
+        for (String annotation : ROUTE_ANNOTATIONS) types.add(REST_PACKAGE + annotation);
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Set<TypeElement> resources = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    resources.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement resource : resources) {
+            try {
+                generateRegistrar(resource);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can not generate registrar: " + e.getMessage(), resource);
+            }
+        }
+        return false;
+    }
+
+    private void generateRegistrar(TypeElement resource) throws IOException {
+        if (resource.getModifiers().contains(Modifier.PRIVATE)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "private resource class is not generated", resource);
+            return;
+        }
+        final List<ExecutableElement> methods = new ArrayList<>();
+        for (Element element : resource.getEnclosedElements()) {
+            if (element.getKind() == ElementKind.METHOD && isRouteMethod(element)) {
+                if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "route method must not be private", element);
+                    return;
+                }
+                methods.add((ExecutableElement) element);
+            }
+        }
+        if (methods.isEmpty()) return;
+
+        final Types types = processingEnv.getTypeUtils();
+        final String packageName = processingEnv.getElementUtils().getPackageOf(resource).getQualifiedName().toString();
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(resource).toString();
+        final String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + CLASS_NAME_SUFFIX;
+        final String resourceName = types.erasure(resource.asType()).toString();
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, resource);
+        try (PrintWriter writer = new PrintWriter(file.openWriter())) {
+            if (!packageName.isEmpty()) {
+                writer.println("package " + packageName + ";");
+                writer.println();
+            }
+            writer.println("/**");
+            writer.println(" * Generated by " + getClass().getName() + ", do not edit.");
+            writer.println(" */");
+            writer.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            writer.println("public final class " + simpleName + " implements " + REGISTRAR_CLASS + " {");
+            writer.println();
+            writer.println("    private static final String[] METHOD_NAMES = {");
+            for (ExecutableElement method : methods) {
+                writer.println("            \"" + method.getSimpleName() + "\",");
+            }
+            writer.println("    };");
+            writer.println();
+            writer.println("    private static final Class<?>[][] PARAMETER_TYPES = {");
+            for (ExecutableElement method : methods) {
+                StringBuilder builder = new StringBuilder("            {");
+                List<? extends VariableElement> parameters = method.getParameters();
+                for (int i = 0; i < parameters.size(); i++) {
+                    if (i > 0) builder.append(", ");
+                    builder.append(types.erasure(parameters.get(i).asType())).append(".class");
+                }
+                writer.println(builder.append("},"));
+            }
+            writer.println("    };");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public String[] methodNames() {");
+            writer.println("        return METHOD_NAMES.clone();");
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public Class<?>[][] parameterTypes() {");
+            writer.println("        return PARAMETER_TYPES.clone();");
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public Object invoke(int methodIndex, Object target, Object[] arguments) throws Throwable {");
+            writer.println("        switch (methodIndex) {");
+            for (int index = 0; index < methods.size(); index++) {
+                ExecutableElement method = methods.get(index);
+                String call = buildCall(method, resourceName, types);
+                writer.println("            case " + index + ":");
+                if (method.getReturnType().getKind() == TypeKind.VOID) {
+                    writer.println("                " + call + ";");
+                    writer.println("                return null;");
+                } else {
+                    writer.println("                return " + call + ";");
+                }
+            }
+            writer.println("            default:");
+            writer.println("                throw new IllegalArgumentException(\"no route method at \" + methodIndex);");
+            writer.println("        }");
+            writer.println("    }");
+            writer.println();
+            writer.println("}");
+        }
+    }
+
+    private static boolean isRouteMethod(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (!name.startsWith(REST_PACKAGE)) continue;
+            String simpleName = name.substring(REST_PACKAGE.length());
+            for (String annotation : ROUTE_ANNOTATIONS) {
+                if (annotation.equals(simpleName)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static String buildCall(ExecutableElement method, String resourceName, Types types) {
+        StringBuilder builder = new StringBuilder();
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            builder.append(resourceName);
+        } else {
+            builder.append("((").append(resourceName).append(") target)");
+        }
+        builder.append('.').append(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) builder.append(", ");
+            TypeMirror type = types.erasure(parameters.get(i).asType());
+            if (type.getKind().isPrimitive()) {
+                builder.append("(").append(types.boxedClass(types.getPrimitiveType(type.getKind()))).append(") arguments[").append(i).append(']');
+            } else {
+                builder.append("(").append(type).append(") arguments[").append(i).append(']');
+            }
+        }
+        return builder.append(')').toString();
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.mdvsc.vertx.rest.processor;
+
+import org.junit.Test;
+import org.mdvsc.vertx.rest.ResourceRegistrar;
+
+import javax.tools.*;
+import java.io.File;
+import java.net.URI;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RestRegistrarProcessorTest {
+
+    private static final String RESOURCE = "package sample;\n"
+            + "import org.mdvsc.vertx.rest.*;\n"
+            + "@URL(\"items\")\n"
+            + "public class Items {\n"
+            + "    @GET public String list(@Query(\"page\") int page) { return \"page\" + page; }\n"
+            + "    @POST @URL(\"add\") public void add(@Body String item) { added = item; }\n"
+            + "    public String helper() { return \"not a route\"; }\n"
+            + "    public String added;\n"
+            + "    public static class Nested {\n"
+            + "        @GET public static long count(@Query(\"of\") long of) { return of * 2; }\n"
+            + "    }\n"
+            + "}\n";
+
+    private static ClassLoader compile(File output) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///sample/Items.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return RESOURCE;
+            }
+        };
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-d", output.getPath(), "-classpath", System.getProperty("java.class.path")),
+                null, Collections.singletonList(source));
+        task.setProcessors(Collections.singletonList(new RestRegistrarProcessor()));
+        assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        return new URLClassLoader(new java.net.URL[]{output.toURI().toURL()}, RestRegistrarProcessorTest.class.getClassLoader());
+    }
+
+    @Test
+    public void generatesRegistrarListingAndCallingRouteMethods() throws Throwable {
+        final ClassLoader loader = compile(Files.createTempDirectory("registrar").toFile());
+        final Class<?> resourceClass = loader.loadClass("sample.Items");
+        final ResourceRegistrar registrar = (ResourceRegistrar) loader.loadClass("sample.Items" + ResourceRegistrar.CLASS_NAME_SUFFIX).newInstance();
+
+        assertArrayEquals(new String[]{"list", "add"}, registrar.methodNames());
+        assertArrayEquals(new Class<?>[][]{{int.class}, {String.class}}, registrar.parameterTypes());
+
+        final Object resource = resourceClass.newInstance();
+        assertEquals("page3", registrar.invoke(0, resource, new Object[]{3}));
+        assertNull(registrar.invoke(1, resource, new Object[]{"x"}));
+        assertEquals("x", resourceClass.getField("added").get(resource));
+    }
+
+    @Test
+    public void generatesRegistrarOfNestedClassWithStaticMethod() throws Throwable {
+        final ClassLoader loader = compile(Files.createTempDirectory("registrar").toFile());
+        final ResourceRegistrar registrar = (ResourceRegistrar) loader.loadClass("sample.Items_Nested" + ResourceRegistrar.CLASS_NAME_SUFFIX).newInstance();
+        assertEquals(8L, registrar.invoke(0, null, new Object[]{4L}));
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.mdvsc.vertx.rest.sample;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.mdvsc.vertx.rest.JacksonSerializer;
+import org.mdvsc.vertx.rest.MediaType;
+import org.mdvsc.vertx.rest.Serializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares response encoding of pretty printed Json.encodePrettily, as mapper did before,
+ * with compact serializer specialized for declared return type, as mapper does now.
+ * Measured types are plain non-final DTOs, as resources usually return.
+ * Run main, optional arguments are iterations and rounds.
+ */
+public class SerializerBenchmark {
+
+    public static class Item {
+        public String name;
+        public int count;
+        public double price;
+        public boolean available;
+        public List<String> tags;
+    }
+
+    public static class Page {
+        public int page;
+        public long total;
+        public List<Item> items;
+        public TestObject owner;
+    }
+
+    public static void main(String... args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final Page page = createPage(20);
+        final Serializer typed = new JacksonSerializer(Json.mapper, MediaType.APPLICATION_JSON, "utf-8").forType(Page.class);
+
+        System.out.println("pretty bytes: " + encodePretty(page).length() + ", compact bytes: " + encodeTyped(typed, page).length());
+        for (int round = 0; round < rounds; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) sink += encodePretty(page).length();
+            final long pretty = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) sink += encodeTyped(typed, page).length();
+            final long compact = System.nanoTime() - start;
+            start = System.nanoTime();
+            final String json = Json.encode(page);
+            for (int i = 0; i < iterations; i++) sink += Json.decodeValue(json, Page.class).total;
+            final long decode = System.nanoTime() - start;
+            start = System.nanoTime();
+            final Buffer buffer = Buffer.buffer(json);
+            for (int i = 0; i < iterations; i++) sink += typed.deserialize(buffer, Page.class).total;
+            final long typedDecode = System.nanoTime() - start;
+            System.out.printf("round %d: encodePrettily %d ns/op, typed compact %d ns/op, decodeValue %d ns/op, typed decode %d ns/op (%d)%n",
+                    round, pretty / iterations, compact / iterations, decode / iterations, typedDecode / iterations, sink & 1);
+        }
+    }
+
+    private static Buffer encodePretty(Object value) {
+        return Buffer.buffer().appendString(Json.encodePrettily(value), "utf-8");
+    }
+
+    private static Buffer encodeTyped(Serializer serializer, Object value) {
+        final Buffer buffer = Buffer.buffer();
+        serializer.serialize(value, buffer);
+        return buffer;
+    }
+
+    private static Page createPage(int size) {
+        final Page page = new Page();
+        page.page = 1;
+        page.total = 1000;
+        page.items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Item item = new Item();
+            item.name = "item " + i;
+            item.count = i;
+            item.price = i * 1.25;
+            item.available = i % 2 == 0;
+            item.tags = new ArrayList<>();
+            item.tags.add("tag" + i);
+            item.tags.add(i % 3 == 0 ? "new" : "used");
+            page.items.add(item);
+        }
+        page.owner = new TestObject();
+        page.owner.name = "owner";
+        return page;
+    }
+
+}